@@ -0,0 +1,21 @@
+package com.projects.My_Instagram.DTOs.response;
+
+import java.util.List;
+
+public class FollowedByResponse {
+    private List<String> usernames;
+    private int totalCount;
+
+    public FollowedByResponse(List<String> usernames, int totalCount) {
+        this.usernames = usernames;
+        this.totalCount = totalCount;
+    }
+
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+}
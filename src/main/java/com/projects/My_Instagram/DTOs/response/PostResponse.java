@@ -1,21 +1,27 @@
 package com.projects.My_Instagram.DTOs.response;
 
-import com.projects.My_Instagram.models.Post;
-import com.projects.My_Instagram.models.User;
-import jakarta.persistence.FetchType;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 public class PostResponse{
+    // Snowflake ids exceed 2^53, so JSON carries them as strings to keep JavaScript clients exact
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     private String caption;
     private String imageUrl;
     private LocalDateTime uploadedAt;
+    private Long likeCount;
+
+    public Long getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(Long likeCount) {
+        this.likeCount = likeCount;
+    }
 
     public List<String> getLikedUsers() {
         return likedUsers;
@@ -0,0 +1,31 @@
+package com.projects.My_Instagram.DTOs.response;
+
+public class PurgeJobResponse {
+    private String jobId;
+    private String status;
+    private Long totalPosts;
+    private Long deletedPosts;
+
+    public PurgeJobResponse(String jobId, String status, Long totalPosts, Long deletedPosts) {
+        this.jobId = jobId;
+        this.status = status;
+        this.totalPosts = totalPosts;
+        this.deletedPosts = deletedPosts;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getTotalPosts() {
+        return totalPosts;
+    }
+
+    public Long getDeletedPosts() {
+        return deletedPosts;
+    }
+}
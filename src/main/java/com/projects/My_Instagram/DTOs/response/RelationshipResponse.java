@@ -0,0 +1,23 @@
+package com.projects.My_Instagram.DTOs.response;
+
+public class RelationshipResponse {
+    private boolean following;
+    private boolean followedBy;
+
+    public RelationshipResponse(boolean following, boolean followedBy) {
+        this.following = following;
+        this.followedBy = followedBy;
+    }
+
+    public boolean isFollowing() {
+        return following;
+    }
+
+    public boolean isFollowedBy() {
+        return followedBy;
+    }
+
+    public boolean isMutual() {
+        return following && followedBy;
+    }
+}
@@ -0,0 +1,19 @@
+package com.projects.My_Instagram.DTOs.response;
+
+public class SuggestionResponse {
+    private UserResponse user;
+    private int followedByCount;
+
+    public SuggestionResponse(UserResponse user, int followedByCount) {
+        this.user = user;
+        this.followedByCount = followedByCount;
+    }
+
+    public UserResponse getUser() {
+        return user;
+    }
+
+    public int getFollowedByCount() {
+        return followedByCount;
+    }
+}
@@ -0,0 +1,25 @@
+package com.projects.My_Instagram.DTOs.response;
+
+public class TrendingTagResponse {
+    private String tag;
+    private Long lastHourCount;
+    private Double score;
+
+    public TrendingTagResponse(String tag, Long lastHourCount, Double score) {
+        this.tag = tag;
+        this.lastHourCount = lastHourCount;
+        this.score = score;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public Long getLastHourCount() {
+        return lastHourCount;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+}
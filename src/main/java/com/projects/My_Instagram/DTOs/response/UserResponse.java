@@ -6,6 +6,33 @@ public class UserResponse {
     private String fullName;
     private String profilePicUrl;
     private Boolean privateAccount;
+    private Long followerCount;
+    private Long followingCount;
+    private Long postCount;
+
+    public Long getFollowerCount() {
+        return followerCount;
+    }
+
+    public void setFollowerCount(Long followerCount) {
+        this.followerCount = followerCount;
+    }
+
+    public Long getFollowingCount() {
+        return followingCount;
+    }
+
+    public void setFollowingCount(Long followingCount) {
+        this.followingCount = followingCount;
+    }
+
+    public Long getPostCount() {
+        return postCount;
+    }
+
+    public void setPostCount(Long postCount) {
+        this.postCount = postCount;
+    }
 
     public Boolean getPrivateAccount() {
         return privateAccount;
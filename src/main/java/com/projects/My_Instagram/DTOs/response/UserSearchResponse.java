@@ -0,0 +1,37 @@
+package com.projects.My_Instagram.DTOs.response;
+
+public class UserSearchResponse {
+    private Long id;
+    private String username;
+    private String fullName;
+    private String profilePicUrl;
+    private Long followerCount;
+
+    public UserSearchResponse(Long id, String username, String fullName, String profilePicUrl, Long followerCount) {
+        this.id = id;
+        this.username = username;
+        this.fullName = fullName;
+        this.profilePicUrl = profilePicUrl;
+        this.followerCount = followerCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getProfilePicUrl() {
+        return profilePicUrl;
+    }
+
+    public Long getFollowerCount() {
+        return followerCount;
+    }
+}
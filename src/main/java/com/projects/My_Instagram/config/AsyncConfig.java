@@ -0,0 +1,56 @@
+package com.projects.My_Instagram.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Bean(name = "feedFanoutExecutor")
+    public ThreadPoolTaskExecutor feedFanoutExecutor(@Value("${app.feed.fanout-threads:2}") int threads,
+                                                     @Value("${app.feed.fanout-queue-size:10000}") int queueSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueSize);
+        executor.setThreadNamePrefix("feed-fanout-");
+        // When the queue is full the posting thread does the fan-out itself, which throttles producers
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "passwordHashingExecutor")
+    public ThreadPoolTaskExecutor passwordHashingExecutor(@Value("${app.security.password.hashing-threads:4}") int threads,
+                                                          @Value("${app.security.password.hashing-queue-size:64}") int queueSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueSize);
+        executor.setThreadNamePrefix("password-hashing-");
+        // Rejects once the queue is full so overloaded logins fail fast with 429 instead of waiting
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "postPurgeExecutor")
+    public ThreadPoolTaskExecutor postPurgeExecutor(@Value("${app.posts.purge.threads:1}") int threads,
+                                                    @Value("${app.posts.purge.queue-size:100}") int queueSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueSize);
+        executor.setThreadNamePrefix("post-purge-");
+        // Purges are background work; a full queue is answered with 429 rather than run on the request thread
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -4,20 +4,28 @@ public enum ExceptionMessages {
     USER_NOT_FOUND("User not found"),
     USER_NAME_EXISTS("Username already taken"),
     POST_NOT_FOUND("Post not found"),
+    PURGE_JOB_NOT_FOUND("Purge job not found"),
     USER_NAME_NULL("User Should Not be null"),
     PASS_WORD_NUll("Password is mandatory"),
     UNAUTHORIZED("Access denied: You do not have permission to delete this."),
     COMMENT_NOT_FOUND("Comment not found"),
+    INVALID_CURSOR("Invalid pagination cursor"),
+    CONCURRENT_UPDATE("The request conflicted with a concurrent update, please retry"),
+    SERVER_BUSY("Too many requests, please retry shortly"),
+    SEARCH_INDEX_LOADING("Search is still loading, please retry shortly"),
 
     //Like / Unlike
 
     YOU_CANNOT_LIKE("You cannot like or comment on this private user's post"),
+    PRIVATE_ACCOUNT("This account is private"),
     //Follow / Unfollow
 
     FOLLOW_SELF("You can't follow yourself"),
     ALREADY_FOLLOWING("You are already following the user"),
     ALREADY_REQUESTED("You already requested"),
     NOT_FOLLOWING("You are not following the user"),
+    FOLLOW_GRAPH_LOADING("Follow data is still loading, please retry shortly"),
+    SUGGESTIONS_LOADING("Suggestions are still being prepared, please retry shortly"),
 
     // Follow Request
 
@@ -21,7 +21,9 @@ public enum ResponseMessages {
 
     // Follow Request Actions
     FOLLOW_REQUEST_ACCEPTED("Follow Request Accepted successfully"),
-    FOLLOW_REQUEST_REJECTED("Follow Request Rejected successfully");
+    FOLLOW_REQUEST_REJECTED("Follow Request Rejected successfully"),
+    FOLLOW_REQUESTS_ACCEPTED("Follow Requests Accepted: %d"),
+    FOLLOW_REQUESTS_REJECTED("Follow Requests Rejected: %d");
 
     private String message;
 
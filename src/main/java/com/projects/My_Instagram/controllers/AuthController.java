@@ -5,9 +5,10 @@ import com.projects.My_Instagram.DTOs.request.UserRequest;
 import com.projects.My_Instagram.DTOs.response.AuthResponse;
 import com.projects.My_Instagram.DTOs.response.SignUpResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
+import com.projects.My_Instagram.DTOs.response.UsernameAvailabilityResponse;
 import com.projects.My_Instagram.helper.Helper;
 import com.projects.My_Instagram.jwt.JwtUtil;
-import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.security.CurrentUserContext;
 import com.projects.My_Instagram.services.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,11 +26,13 @@ public class AuthController {
     private final UserService userService;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final CurrentUserContext currentUserContext;
 
-    public AuthController(UserService userService, JwtUtil jwtUtil, AuthenticationManager authenticationManager) {
+    public AuthController(UserService userService, JwtUtil jwtUtil, AuthenticationManager authenticationManager, CurrentUserContext currentUserContext) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
+        this.currentUserContext = currentUserContext;
     }
 
     @PostMapping("/signup")
@@ -39,6 +42,11 @@ public class AuthController {
         return ResponseEntity.status(HttpStatus.CREATED).body(signUpResponse);
     }
 
+    @GetMapping("/username-available")
+    public UsernameAvailabilityResponse isUsernameAvailable(@RequestParam String username){
+        return userService.isUsernameAvailable(username);
+    }
+
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
 
@@ -50,18 +58,14 @@ public class AuthController {
         );
 
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User user = userService.findUserByUserName(userDetails.getUsername());
         String token = jwtUtil.generateToken(userDetails);
 
         return ResponseEntity.ok(new AuthResponse(token));
     }
 
     @GetMapping("/me")
-    public ResponseEntity<?> getCurrentUser(Authentication authentication){
-        String username = authentication.getName();
-        User user = userService.findUserByUserName(username);
-
-        return ResponseEntity.ok(Helper.formUserResponse(user));
+    public ResponseEntity<?> getCurrentUser(){
+        return ResponseEntity.ok(Helper.formUserResponse(currentUserContext.get()));
     }
 }
 
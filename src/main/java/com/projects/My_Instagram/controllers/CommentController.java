@@ -2,12 +2,11 @@ package com.projects.My_Instagram.controllers;
 
 import com.projects.My_Instagram.DTOs.request.CreateCommentRequest;
 import com.projects.My_Instagram.DTOs.response.CommentResponse;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.services.CommentService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 public class CommentController {
     private final CommentService commentService;
@@ -27,7 +26,10 @@ public class CommentController {
     }
 
     @GetMapping("/posts/{post_id}/comments")
-    public ResponseEntity<List<CommentResponse>> getAllCommentsOfPost(@PathVariable Long post_id){
-        return commentService.getAllComments(post_id);
+    public ResponseEntity<PageResponse<CommentResponse>> getAllCommentsOfPost(@PathVariable Long post_id,
+                                                                             @RequestParam(required = false) String cursor,
+                                                                             @RequestParam(defaultValue = "20") int limit,
+                                                                             @RequestParam(defaultValue = "newest") String order){
+        return commentService.getAllComments(post_id, cursor, limit, "oldest".equalsIgnoreCase(order));
     }
 }
@@ -0,0 +1,25 @@
+package com.projects.My_Instagram.controllers;
+
+import com.projects.My_Instagram.DTOs.response.PageResponse;
+import com.projects.My_Instagram.DTOs.response.PostResponse;
+import com.projects.My_Instagram.services.FeedService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/feed")
+public class FeedController {
+    private final FeedService feedService;
+
+    public FeedController(FeedService feedService) {
+        this.feedService = feedService;
+    }
+
+    @GetMapping
+    public PageResponse<PostResponse> getFeed(@RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        return feedService.getFeed(cursor, limit);
+    }
+}
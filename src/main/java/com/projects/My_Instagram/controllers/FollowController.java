@@ -1,10 +1,16 @@
 package com.projects.My_Instagram.controllers;
 
 import com.projects.My_Instagram.DTOs.response.FollowRequestResponse;
+import com.projects.My_Instagram.DTOs.response.FollowedByResponse;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
+import com.projects.My_Instagram.DTOs.response.RelationshipResponse;
+import com.projects.My_Instagram.DTOs.response.SuggestionResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
 import com.projects.My_Instagram.services.FollowService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -27,19 +33,57 @@ public class FollowController {
         return followService.unfollowUser(username);
     }
 
+    @GetMapping("/suggestions")
+    public List<SuggestionResponse> getSuggestions(@RequestParam(defaultValue = "20") int limit){
+        return followService.getSuggestions(limit);
+    }
+
+    @GetMapping("/{username}/followed-by")
+    public FollowedByResponse getFollowedBy(@PathVariable String username){
+        return followService.getFollowedBy(username);
+    }
+
+    @GetMapping("/{username}/relationship")
+    public RelationshipResponse getRelationship(@PathVariable String username){
+        return followService.getRelationship(username);
+    }
+
     @GetMapping("/followers")
-    public List<UserResponse> getFollowers(){
-        return followService.getFollowers();
+    public PageResponse<UserResponse> getFollowers(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int limit){
+        return followService.getFollowers(cursor, limit);
     }
 
     @GetMapping("/following")
-    public List<UserResponse> getFollowing(){
-        return followService.getFollowing();
+    public PageResponse<UserResponse> getFollowing(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int limit){
+        return followService.getFollowing(cursor, limit);
+    }
+
+    @GetMapping(value = "/followers/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFollowers(){
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(followService.exportFollowers());
+    }
+
+    @GetMapping(value = "/following/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFollowing(){
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(followService.exportFollowing());
     }
 
     @GetMapping("/follow-requests")
-    public List<FollowRequestResponse> getAllFollowRequests(){
-        return followService.getAllFollowRequests();
+    public PageResponse<FollowRequestResponse> getAllFollowRequests(@RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "20") int limit){
+        return followService.getAllFollowRequests(cursor, limit);
+    }
+
+    @PatchMapping("/follow-requests/accept")
+    public ResponseEntity<String> acceptAllFollowRequests(){
+        return followService.acceptAllFollowRequests();
+    }
+
+    @PatchMapping("/follow-requests/reject")
+    public ResponseEntity<String> rejectAllFollowRequests(){
+        return followService.rejectAllFollowRequests();
     }
 
     @PatchMapping("/follow/{username}/accept")
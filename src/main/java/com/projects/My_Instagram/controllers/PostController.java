@@ -1,15 +1,16 @@
 package com.projects.My_Instagram.controllers;
 
 import com.projects.My_Instagram.DTOs.request.PostRequest;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.DTOs.response.PostResponse;
+import com.projects.My_Instagram.DTOs.response.PurgeJobResponse;
 import com.projects.My_Instagram.services.PostService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/posts")
 public class PostController {
@@ -27,12 +28,22 @@ public class PostController {
 
     @PreAuthorize("hasRole('USER')")
     @GetMapping({"", "/user/{username}"})
-    public List<PostResponse> getAllPostsOfUser(@PathVariable(required = false) String username) {
+    public PageResponse<PostResponse> getAllPostsOfUser(@PathVariable(required = false) String username,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "20") int limit) {
         if (username == null) {
-            return postService.getAllPostOfUser(SecurityContextHolder.getContext().getAuthentication().getName());
+            return postService.getAllPostOfUser(SecurityContextHolder.getContext().getAuthentication().getName(), cursor, limit);
         }
 
-        return postService.getAllPostOfUser(username);
+        return postService.getAllPostOfUser(username, cursor, limit);
+    }
+
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/search")
+    public PageResponse<PostResponse> searchPosts(@RequestParam("q") String query,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        return postService.searchPosts(query, cursor, limit);
     }
 
     @DeleteMapping("/{post_id}")
@@ -41,8 +52,13 @@ public class PostController {
     }
 
     @DeleteMapping
-    public void deleteAllPostsOfUser() {
-        postService.deleteAllPostOfUser();
+    public ResponseEntity<PurgeJobResponse> deleteAllPostsOfUser() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(postService.deleteAllPostOfUser());
+    }
+
+    @GetMapping("/purge-jobs/{job_id}")
+    public PurgeJobResponse getPurgeJob(@PathVariable String job_id) {
+        return postService.getPurgeJob(job_id);
     }
 
     @PostMapping("{post_id}/like")
@@ -0,0 +1,34 @@
+package com.projects.My_Instagram.controllers;
+
+import com.projects.My_Instagram.DTOs.response.PageResponse;
+import com.projects.My_Instagram.DTOs.response.PostResponse;
+import com.projects.My_Instagram.DTOs.response.TrendingTagResponse;
+import com.projects.My_Instagram.services.PostService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/tags")
+public class TagController {
+    private final PostService postService;
+
+    public TagController(PostService postService) {
+        this.postService = postService;
+    }
+
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/trending")
+    public List<TrendingTagResponse> getTrendingTags(@RequestParam(defaultValue = "10") int limit) {
+        return postService.getTrendingTags(limit);
+    }
+
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/{tag}/posts")
+    public PageResponse<PostResponse> getPostsByTag(@PathVariable String tag,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int limit) {
+        return postService.getPostsByTag(tag, cursor, limit);
+    }
+}
@@ -1,10 +1,15 @@
 package com.projects.My_Instagram.controllers;
 
 import com.projects.My_Instagram.DTOs.request.UserRequest;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
+import com.projects.My_Instagram.DTOs.response.UserSearchResponse;
 import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.services.UserService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -23,8 +28,20 @@ public class UserController {
     }
 
     @GetMapping
-    public List<UserResponse> getAllUsers(){
-        return userService.getAllUsers();
+    public PageResponse<UserResponse> getAllUsers(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "50") int limit){
+        return userService.getAllUsers(cursor, limit);
+    }
+
+    @GetMapping(params = "stream=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(){
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(userService.exportAllUsers());
+    }
+
+    @GetMapping("/search")
+    public List<UserSearchResponse> searchUsers(@RequestParam("q") String query,
+                                                @RequestParam(defaultValue = "10") int limit){
+        return userService.searchUsers(query, limit);
     }
 
     @PutMapping("/{id}")
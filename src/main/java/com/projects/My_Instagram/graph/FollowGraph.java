@@ -0,0 +1,237 @@
+package com.projects.My_Instagram.graph;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * In-memory copy of user_following, kept as one Roaring bitmap of user ids
+ * per user and direction. Membership, counts and overlaps are answered with
+ * bitmap operations instead of joins.
+ *
+ * <p>User ids are stored as ints, which holds as long as users keep their
+ * identity-generated ids. The graph is loaded once the application is ready.
+ * After that it is updated by {@code FollowService} once each follow change
+ * commits. Until loading finishes {@link #isReady()} is false and callers
+ * fall back to the database.
+ */
+@Component
+public class FollowGraph {
+    private static final Logger log = LoggerFactory.getLogger(FollowGraph.class);
+    private static final int LOAD_FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Integer, RoaringBitmap> following = new HashMap<>();
+    private Map<Integer, RoaringBitmap> followers = new HashMap<>();
+    private long edgeCount;
+    private volatile boolean ready;
+    // Changes seen while a load is running, replayed onto the loaded snapshot
+    private List<long[]> pendingChanges;
+
+    public FollowGraph(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        Gauge.builder("follow.graph.edges", this, FollowGraph::getEdgeCount).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Integer, RoaringBitmap> loadedFollowing = new HashMap<>();
+        Map<Integer, RoaringBitmap> loadedFollowers = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("select follower_id, following_id from user_following");
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) row -> {
+            int followerId = toInt(row.getLong(1));
+            int followingId = toInt(row.getLong(2));
+            loadedFollowing.computeIfAbsent(followerId, id -> new RoaringBitmap()).add(followingId);
+            loadedFollowers.computeIfAbsent(followingId, id -> new RoaringBitmap()).add(followerId);
+        }));
+
+        long loadedEdges = 0;
+        for (RoaringBitmap bitmap : loadedFollowing.values()) {
+            bitmap.runOptimize();
+            loadedEdges += bitmap.getLongCardinality();
+        }
+        for (RoaringBitmap bitmap : loadedFollowers.values()) {
+            bitmap.runOptimize();
+        }
+
+        lock.writeLock().lock();
+        try {
+            following = loadedFollowing;
+            followers = loadedFollowers;
+            edgeCount = loadedEdges;
+            for (long[] change : pendingChanges) {
+                apply(change[0] == 1, change[1], change[2]);
+            }
+            pendingChanges = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded follow graph with {} edges", edgeCount);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void addEdge(long followerId, long followingId) {
+        change(true, followerId, followingId);
+    }
+
+    public void removeEdge(long followerId, long followingId) {
+        change(false, followerId, followingId);
+    }
+
+    public boolean isFollowing(long followerId, long followingId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap bitmap = following.get(toInt(followerId));
+            return bitmap != null && bitmap.contains(toInt(followingId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int followingCount(long userId) {
+        return cardinality(following, userId);
+    }
+
+    public int followerCount(long userId) {
+        return cardinality(followers, userId);
+    }
+
+    /**
+     * Returns a copy of the ids {@code userId} follows, safe to use without the lock.
+     */
+    public RoaringBitmap following(long userId) {
+        return copy(following, userId);
+    }
+
+    public RoaringBitmap followers(long userId) {
+        return copy(followers, userId);
+    }
+
+    /**
+     * Visits the ids {@code userId} follows under the read lock, without copying.
+     * The consumer must be quick and must not call back into the graph's writers.
+     */
+    public void forEachFollowing(long userId, IntConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap bitmap = following.get(toInt(userId));
+            if (bitmap != null) {
+                bitmap.forEach(consumer);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The people {@code viewerId} follows who also follow {@code targetId}.
+     */
+    public RoaringBitmap followedByFollowing(long viewerId, long targetId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap viewerFollowing = following.get(toInt(viewerId));
+            RoaringBitmap targetFollowers = followers.get(toInt(targetId));
+            if (viewerFollowing == null || targetFollowers == null) {
+                return new RoaringBitmap();
+            }
+            return RoaringBitmap.and(viewerFollowing, targetFollowers);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    private void change(boolean add, long followerId, long followingId) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(new long[]{add ? 1 : 0, followerId, followingId});
+            }
+            apply(add, followerId, followingId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(boolean add, long followerId, long followingId) {
+        int follower = toInt(followerId);
+        int followed = toInt(followingId);
+        if (add) {
+            if (following.computeIfAbsent(follower, id -> new RoaringBitmap()).checkedAdd(followed)) {
+                edgeCount++;
+            }
+            followers.computeIfAbsent(followed, id -> new RoaringBitmap()).add(follower);
+            return;
+        }
+
+        RoaringBitmap followedByUser = following.get(follower);
+        if (followedByUser != null && followedByUser.checkedRemove(followed)) {
+            edgeCount--;
+        }
+        RoaringBitmap followersOfUser = followers.get(followed);
+        if (followersOfUser != null) {
+            followersOfUser.remove(follower);
+        }
+    }
+
+    private int cardinality(Map<Integer, RoaringBitmap> adjacency, long userId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap bitmap = adjacency.get(toInt(userId));
+            return bitmap == null ? 0 : bitmap.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap copy(Map<Integer, RoaringBitmap> adjacency, long userId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap bitmap = adjacency.get(toInt(userId));
+            return bitmap == null ? new RoaringBitmap() : bitmap.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int toInt(long userId) {
+        return Math.toIntExact(userId);
+    }
+}
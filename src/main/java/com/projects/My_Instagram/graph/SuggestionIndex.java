@@ -0,0 +1,235 @@
+package com.projects.My_Instagram.graph;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precomputed friends-of-friends suggestions for recently active users.
+ * Candidates are ranked by how many of the user's followees follow them.
+ * Each result is stored as one int array of alternating (user id, count)
+ * pairs, best first.
+ *
+ * <p>Every user who asked for suggestions within the active window stays
+ * in the index. Only {@link #get} counts as activity; recomputes replace
+ * the stored list without extending the user's stay. A periodic full pass recomputes all of them in parallel on
+ * a fork/join pool. A short-interval pass recomputes only users whose own
+ * follows changed since the last run. A user's first request only queues
+ * their list on the same pool, so a burst of new users can't tie up
+ * request threads with graph walks.
+ */
+@Component
+public class SuggestionIndex {
+    private static final int USERS_PER_TASK = 32;
+    // Caps the work for accounts that follow very many people
+    private static final int MAX_FOLLOWEES_SCANNED = 2000;
+    // Placeholder stored until a user's first list is computed; compared by identity
+    private static final int[] PENDING = new int[0];
+
+    private final FollowGraph followGraph;
+    private final Cache<Long, int[]> suggestions;
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+    private final ForkJoinPool pool;
+    private final int topK;
+
+    public SuggestionIndex(FollowGraph followGraph,
+                           @Value("${app.suggestions.top-k:50}") int topK,
+                           @Value("${app.suggestions.max-active-users:100000}") long maxActiveUsers,
+                           @Value("${app.suggestions.active-window:PT24H}") Duration activeWindow,
+                           @Value("${app.suggestions.parallelism:2}") int parallelism) {
+        this.followGraph = followGraph;
+        this.topK = topK;
+        this.pool = new ForkJoinPool(parallelism);
+        this.suggestions = Caffeine.newBuilder()
+                .maximumSize(maxActiveUsers)
+                .expireAfter(new ActiveWindowExpiry(activeWindow))
+                .build();
+    }
+
+    /**
+     * Returns the stored (user id, count) pairs for a user, or null while the
+     * first list is still being computed. The first call queues that
+     * computation on the pool.
+     */
+    public int[] get(long userId) {
+        int[] pairs = suggestions.getIfPresent(userId);
+        if (pairs == null && suggestions.asMap().putIfAbsent(userId, PENDING) == null) {
+            pool.execute(new RecomputeTask(List.of(userId), 0, 1));
+            return null;
+        }
+        return pairs == PENDING ? null : pairs;
+    }
+
+    /**
+     * Drops a newly followed account from the follower's stored list right
+     * away and queues the follower for a recompute.
+     */
+    public void onFollow(long followerId, long followingId) {
+        suggestions.asMap().computeIfPresent(followerId, (id, pairs) -> without(pairs, (int) followingId));
+        dirtyUsers.add(followerId);
+    }
+
+    public void onUnfollow(long followerId) {
+        dirtyUsers.add(followerId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.suggestions.dirty-refresh-interval:PT30S}")
+    public void refreshDirty() {
+        if (!followGraph.isReady() || dirtyUsers.isEmpty()) {
+            return;
+        }
+
+        List<Long> users = new ArrayList<>();
+        for (Long userId : dirtyUsers) {
+            dirtyUsers.remove(userId);
+            if (suggestions.asMap().containsKey(userId)) {
+                users.add(userId);
+            }
+        }
+        recompute(users);
+    }
+
+    @Scheduled(initialDelayString = "${app.suggestions.full-refresh-interval:PT1H}", fixedDelayString = "${app.suggestions.full-refresh-interval:PT1H}")
+    public void refreshAll() {
+        if (followGraph.isReady()) {
+            recompute(new ArrayList<>(suggestions.asMap().keySet()));
+        }
+    }
+
+    void recompute(List<Long> users) {
+        if (!users.isEmpty()) {
+            pool.invoke(new RecomputeTask(users, 0, users.size()));
+        }
+    }
+
+    int[] computeFor(long userId) {
+        Map<Integer, int[]> counts = new HashMap<>();
+        RoaringBitmap followees = followGraph.following(userId);
+        int self = (int) userId;
+
+        int scanned = 0;
+        for (int followee : followees) {
+            if (scanned++ == MAX_FOLLOWEES_SCANNED) {
+                break;
+            }
+            followGraph.forEachFollowing(followee, candidate -> {
+                if (candidate != self && !followees.contains(candidate)) {
+                    counts.computeIfAbsent(candidate, id -> new int[1])[0]++;
+                }
+            });
+        }
+
+        return topPairs(counts);
+    }
+
+    private int[] topPairs(Map<Integer, int[]> counts) {
+        // Min-heap on (count, then larger id first) so the weakest candidate is evicted
+        PriorityQueue<int[]> heap = new PriorityQueue<>((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(b[0], a[0]));
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            heap.offer(new int[]{entry.getKey(), entry.getValue()[0]});
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+
+        int[] pairs = new int[heap.size() * 2];
+        for (int i = pairs.length - 2; i >= 0; i -= 2) {
+            int[] top = heap.poll();
+            pairs[i] = top[0];
+            pairs[i + 1] = top[1];
+        }
+        return pairs;
+    }
+
+    private static int[] without(int[] pairs, int userId) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] == userId) {
+                int[] trimmed = new int[pairs.length - 2];
+                System.arraycopy(pairs, 0, trimmed, 0, i);
+                System.arraycopy(pairs, i + 2, trimmed, i, pairs.length - i - 2);
+                return trimmed;
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Expires a user's entry one active window after their last read. Unlike
+     * expireAfterAccess, writes from onFollow and the refresh passes keep
+     * the remaining time as it is.
+     */
+    static class ActiveWindowExpiry implements Expiry<Long, int[]> {
+        private final long windowNanos;
+
+        ActiveWindowExpiry(Duration activeWindow) {
+            this.windowNanos = activeWindow.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Long userId, int[] pairs, long currentTime) {
+            return windowNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, int[] pairs, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, int[] pairs, long currentTime, long currentDuration) {
+            return windowNanos;
+        }
+    }
+
+    boolean awaitIdle(Duration timeout) {
+        return pool.awaitQuiescence(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private class RecomputeTask extends RecursiveAction {
+        private final List<Long> users;
+        private final int from;
+        private final int to;
+
+        RecomputeTask(List<Long> users, int from, int to) {
+            this.users = users;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= USERS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    Long userId = users.get(i);
+                    suggestions.asMap().replace(userId, computeFor(userId));
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new RecomputeTask(users, from, middle), new RecomputeTask(users, middle, to));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.projects.My_Instagram.helper;
+
+import org.hibernate.JDBCException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+
+/**
+ * Tells a duplicate key apart from the other integrity violations, so only
+ * a write that lost a race is reported as a conflict and NOT NULL or
+ * foreign-key failures still surface as errors.
+ */
+public class Constraints {
+    // SQLSTATE for unique_violation, shared by PostgreSQL and H2
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    public static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+            if (cause instanceof JDBCException jdbc && UNIQUE_VIOLATION.equals(jdbc.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,69 @@
+package com.projects.My_Instagram.helper;
+
+import com.projects.My_Instagram.exceptions.AppException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import static com.projects.My_Instagram.constants.exception.ExceptionMessages.INVALID_CURSOR;
+
+/**
+ * Encodes keyset positions as opaque, URL-safe cursors so clients never
+ * depend on the columns a list is ordered by.
+ */
+public class CursorCodec {
+    private static final String SEPARATOR = "|";
+
+    public static String encode(Object... parts) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(parts[i]);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != expectedParts) {
+                throw new IllegalArgumentException();
+            }
+
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new AppException(INVALID_CURSOR.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    public static Long decodeId(String cursor) {
+        return parseId(decode(cursor, 1)[0]);
+    }
+
+    public static Long parseId(String part) {
+        try {
+            return Long.valueOf(part);
+        } catch (NumberFormatException e) {
+            throw new AppException(INVALID_CURSOR.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    public static LocalDateTime parseTimestamp(String part) {
+        try {
+            return LocalDateTime.parse(part);
+        } catch (DateTimeParseException e) {
+            throw new AppException(INVALID_CURSOR.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    public static int clampLimit(int limit, int maxLimit) {
+        return Math.max(1, Math.min(limit, maxLimit));
+    }
+}
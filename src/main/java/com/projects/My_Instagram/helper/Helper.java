@@ -2,15 +2,22 @@ package com.projects.My_Instagram.helper;
 
 import com.projects.My_Instagram.DTOs.response.CommentResponse;
 import com.projects.My_Instagram.DTOs.response.PostResponse;
+import com.projects.My_Instagram.DTOs.response.PurgeJobResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
+import com.projects.My_Instagram.jobs.PostPurgeJob;
 import com.projects.My_Instagram.models.Comment;
 import com.projects.My_Instagram.models.Post;
 import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.repositories.FollowRow;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Helper {
+    public static final int LIKED_USERS_SAMPLE_SIZE = 3;
+
     public static UserResponse formUserResponse(User createdUser) {
         UserResponse userResponse = new UserResponse();
         userResponse.setId(createdUser.getId());
@@ -18,31 +25,78 @@ public class Helper {
         userResponse.setProfilePicUrl(createdUser.getProfilePicUrl());
         userResponse.setUsername(createdUser.getUsername());
         userResponse.setPrivateAccount(createdUser.getPrivateAccount());
+        userResponse.setFollowerCount(createdUser.getFollowerCount());
+        userResponse.setFollowingCount(createdUser.getFollowingCount());
+        userResponse.setPostCount(createdUser.getPostCount());
+
+        return userResponse;
+    }
+
+    public static UserResponse formUserResponse(FollowRow row) {
+        UserResponse userResponse = new UserResponse();
+        userResponse.setId(row.userId());
+        userResponse.setFullName(row.fullName());
+        userResponse.setProfilePicUrl(row.profilePicUrl());
+        userResponse.setUsername(row.username());
+        userResponse.setPrivateAccount(row.privateAccount());
+        userResponse.setFollowerCount(row.followerCount());
+        userResponse.setFollowingCount(row.followingCount());
+        userResponse.setPostCount(row.postCount());
 
         return userResponse;
     }
 
     public static PostResponse formPostResponse(Post post){
+        return formPostResponse(post, new ArrayList<>());
+    }
+
+    /**
+     * Builds the response with the like count and a bounded sample of likers
+     * instead of every liker, so response size does not grow with popularity.
+     */
+    public static PostResponse formPostResponse(Post post, List<String> likedUsersSample){
         PostResponse postResponse = new PostResponse();
         postResponse.setUser(formUserResponse(post.getUser()));
         postResponse.setCaption(post.getCaption());
         postResponse.setImageUrl(post.getImageUrl());
         postResponse.setUploadedAt(post.getUploadedAt());
         postResponse.setId(post.getId());
-        List<String> likedUsers = getLikedUsers(post);
-        postResponse.setLikedUsers(likedUsers);
+        postResponse.setLikeCount(post.getLikeCount());
+        postResponse.setLikedUsers(likedUsersSample);
         return postResponse;
     }
 
-    private static List<String> getLikedUsers(Post post) {
-        List<String> likedUsers = new ArrayList<>();
-        for (User likedUser : post.getLikedUsers()) {
-            likedUsers.add(likedUser.getUsername());
+    /**
+     * Forms responses for a page of posts. {@code likerSamples} holds
+     * (post id, username) rows as returned by {@code PostRepository.findLikerSamples}.
+     */
+    public static List<PostResponse> formPostResponses(List<Post> posts, List<Object[]> likerSamples){
+        Map<Long, List<String>> samplesByPost = new HashMap<>();
+        for (Object[] row : likerSamples) {
+            Long postId = ((Number) row[0]).longValue();
+            samplesByPost.computeIfAbsent(postId, id -> new ArrayList<>()).add((String) row[1]);
         }
-        return likedUsers;
+
+        List<PostResponse> responses = new ArrayList<>();
+        for (Post post : posts) {
+            responses.add(formPostResponse(post, samplesByPost.getOrDefault(post.getId(), new ArrayList<>())));
+        }
+        return responses;
+    }
+
+    public static List<Long> postIds(List<Post> posts){
+        List<Long> ids = new ArrayList<>();
+        for (Post post : posts) {
+            ids.add(post.getId());
+        }
+        return ids;
     }
 
     public static CommentResponse formCommentResponse(Comment comment){
         return new CommentResponse(comment.getCommentedUser().getUsername(), comment.getUploadedAt(), comment.getContent());
     }
+
+    public static PurgeJobResponse formPurgeJobResponse(PostPurgeJob.Progress progress) {
+        return new PurgeJobResponse(progress.getId(), progress.getStatus().name(), progress.getTotalPosts(), progress.getDeletedPosts());
+    }
 }
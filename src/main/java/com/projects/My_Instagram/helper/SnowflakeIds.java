@@ -0,0 +1,60 @@
+package com.projects.My_Instagram.helper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 64-bit ids made of 41 bits of milliseconds since {@link #EPOCH_MILLIS},
+ * 10 bits of node id and 12 bits of sequence. Ids from one node strictly
+ * increase, so they sort by creation time, and nodes with different ids
+ * never collide.
+ *
+ * <p>The last timestamp and sequence share one atomic long and are advanced
+ * with compare-and-set, so generation never locks. When a millisecond runs
+ * out of sequence numbers, or the clock steps back, ids carry on from the
+ * next millisecond instead of waiting for the clock.
+ */
+public class SnowflakeIds {
+    // 2025-01-01T00:00:00Z
+    public static final long EPOCH_MILLIS = 1735689600000L;
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong(-1);
+
+    public SnowflakeIds(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    public SnowflakeIds(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.node = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public long next() {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        while (true) {
+            long previous = last.get();
+            long next = Math.max(now, previous + 1);
+            if (last.compareAndSet(previous, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return millis << (NODE_BITS + SEQUENCE_BITS) | node | sequence;
+            }
+        }
+    }
+
+    /**
+     * The creation time encoded in an id, in epoch milliseconds.
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+}
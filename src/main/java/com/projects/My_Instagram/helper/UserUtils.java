@@ -6,8 +6,7 @@ import com.projects.My_Instagram.models.Post;
 import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.repositories.PostRepository;
 import com.projects.My_Instagram.repositories.UserRepository;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import com.projects.My_Instagram.security.CurrentUserContext;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
@@ -19,17 +18,16 @@ import static com.projects.My_Instagram.constants.exception.ExceptionMessages.US
 public class UserUtils {
     private final UserRepository userRepository;
     private final PostRepository postRepository;
+    private final CurrentUserContext currentUserContext;
 
-    public UserUtils(UserRepository userRepository, PostRepository postRepository) {
+    public UserUtils(UserRepository userRepository, PostRepository postRepository, CurrentUserContext currentUserContext) {
         this.userRepository = userRepository;
         this.postRepository = postRepository;
+        this.currentUserContext = currentUserContext;
     }
 
     public User fetchCurrectUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        Optional<User> user = userRepository.findByUsername(username);
-        return user.get();
+        return currentUserContext.get();
     }
 
     public User fetchUser(String username){
@@ -0,0 +1,113 @@
+package com.projects.My_Instagram.helper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter of every taken username, so "is this name free" is usually
+ * answered without a query. A negative answer is definite. A positive one
+ * means the name may be taken and the caller checks the database.
+ *
+ * <p>Names are added on signup and rename. A Bloom filter cannot forget
+ * a name, so deletes and renames only count the stale entries. The
+ * scheduled rebuild runs when there are stale entries to drop, or when
+ * names added since the last load have filled the filter past
+ * {@code MAX_FILL} of the capacity it was sized for, and sizes the new
+ * filter for the current table. Until the first load finishes every name
+ * is reported as possibly taken.
+ */
+@Component
+public class UsernameFilter {
+    private static final Logger log = LoggerFactory.getLogger(UsernameFilter.class);
+    private static final int LOAD_FETCH_SIZE = 10000;
+    // Past this share of its capacity the false-positive rate starts climbing above the configured one
+    private static final double MAX_FILL = 0.75;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final AtomicLong staleEntries = new AtomicLong();
+    private final AtomicLong addedSinceLoad = new AtomicLong();
+
+    private volatile BloomFilter filter;
+    // Filter being rebuilt; names added meanwhile go into both
+    private volatile BloomFilter building;
+    private volatile long loadedEntries;
+    private volatile long capacity;
+
+    public UsernameFilter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                          @Value("${app.usernames.expected-users:1000000}") long expectedUsers,
+                          @Value("${app.usernames.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        Gauge.builder("usernames.filter.stale", staleEntries, AtomicLong::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        Long userCount = jdbcTemplate.queryForObject("select count(*) from users", Long.class);
+        long loadedUsers = userCount == null ? 0 : userCount;
+        long capacity = Math.max(expectedUsers, loadedUsers * 2);
+        long staleBefore = staleEntries.get();
+        long addedBefore = addedSinceLoad.get();
+
+        BloomFilter loaded = new BloomFilter(capacity, falsePositiveRate);
+        building = loaded;
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("select username from users");
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) row -> loaded.put(row.getString(1))));
+
+        filter = loaded;
+        building = null;
+        this.loadedEntries = loadedUsers;
+        this.capacity = capacity;
+        staleEntries.addAndGet(-staleBefore);
+        addedSinceLoad.addAndGet(-addedBefore);
+        log.info("Loaded username filter with {} bits for {} users", loaded.getBitCount(), userCount);
+    }
+
+    @Scheduled(initialDelayString = "${app.usernames.rebuild-interval:PT6H}", fixedDelayString = "${app.usernames.rebuild-interval:PT6H}")
+    public void rebuildIfStale() {
+        if (staleEntries.get() > 0 || loadedEntries + addedSinceLoad.get() > capacity * MAX_FILL) {
+            load();
+        }
+    }
+
+    public boolean mightBeTaken(String username) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(username);
+    }
+
+    public void add(String username) {
+        BloomFilter current = filter;
+        BloomFilter next = building;
+        if (current != null) {
+            current.put(username);
+        }
+        if (next != null) {
+            next.put(username);
+        }
+        addedSinceLoad.incrementAndGet();
+    }
+
+    public void markRemoved() {
+        staleEntries.incrementAndGet();
+    }
+}
@@ -0,0 +1,81 @@
+package com.projects.My_Instagram.jobs;
+
+import com.projects.My_Instagram.repositories.PostRepository;
+import com.projects.My_Instagram.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Repairs drift in the follower, following and post counters on users and
+ * in the like counter on posts. Walks each table in id ranges, each in its
+ * own short transaction, so no single run holds locks over a whole table.
+ * The first run starts right after startup, so posts liked before
+ * like_count existed get their count then instead of an interval later.
+ */
+@Component
+public class CounterReconciliationJob {
+    private static final Logger log = LoggerFactory.getLogger(CounterReconciliationJob.class);
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public CounterReconciliationJob(UserRepository userRepository, PostRepository postRepository, TransactionTemplate transactionTemplate,
+                                    @Value("${app.counters.reconcile-batch-size:1000}") int batchSize) {
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.counters.reconcile-initial-delay:PT0S}", fixedDelayString = "${app.counters.reconcile-interval:PT1H}")
+    public void run() {
+        long repairedUsers = reconcile();
+        long repairedPosts = reconcilePosts();
+        if (repairedUsers > 0 || repairedPosts > 0) {
+            log.info("Repaired counters on {} users and {} posts", repairedUsers, repairedPosts);
+        }
+    }
+
+    /**
+     * Runs one full pass over users and returns the number whose counters were fixed.
+     */
+    public long reconcile() {
+        return reconcile(userRepository::findIdsAfter, userRepository::reconcileCounts);
+    }
+
+    /**
+     * Runs one full pass over posts and returns the number whose like count was fixed.
+     */
+    public long reconcilePosts() {
+        return reconcile(postRepository::findIdsAfter, postRepository::reconcileLikeCounts);
+    }
+
+    private long reconcile(BiFunction<Long, Pageable, List<Long>> findIdsAfter, BiFunction<Long, Long, Integer> reconcileRange) {
+        long repaired = 0;
+        Long afterId = 0L;
+
+        while (true) {
+            List<Long> ids = findIdsAfter.apply(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return repaired;
+            }
+
+            Long from = afterId;
+            Long upTo = ids.get(ids.size() - 1);
+            Integer updated = transactionTemplate.execute(status -> reconcileRange.apply(from, upTo));
+            repaired += updated == null ? 0 : updated;
+            afterId = upTo;
+        }
+    }
+}
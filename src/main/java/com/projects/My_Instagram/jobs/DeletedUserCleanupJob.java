@@ -0,0 +1,178 @@
+package com.projects.My_Instagram.jobs;
+
+import com.projects.My_Instagram.graph.FollowGraph;
+import com.projects.My_Instagram.graph.SuggestionIndex;
+import com.projects.My_Instagram.helper.UsernameFilter;
+import com.projects.My_Instagram.repositories.CommentRepository;
+import com.projects.My_Instagram.repositories.FollowRequestRepository;
+import com.projects.My_Instagram.repositories.PostRepository;
+import com.projects.My_Instagram.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Removes the rows of users marked deleted. Deleting an account only sets
+ * the tombstone flag; every read already skips the user, and this job does
+ * the heavy part later: follow requests, follow edges (fixing the other
+ * side's counters), likes (fixing like counts), comments, posts and finally
+ * the user row.
+ *
+ * <p>Each step deletes in id-ordered batches, one short transaction per
+ * batch with a pause in between. All progress is in the database, so a run
+ * cut short by a restart simply continues on the next run; the user row
+ * goes last, so a tombstone is only gone once everything else is. A run
+ * can hold a scheduler thread for minutes, which is why the scheduling
+ * pool has more than the default single thread.
+ */
+@Component
+public class DeletedUserCleanupJob {
+    private static final Logger log = LoggerFactory.getLogger(DeletedUserCleanupJob.class);
+
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final FollowRequestRepository followRequestRepository;
+    private final PostPurgeJob postPurgeJob;
+    private final FollowGraph followGraph;
+    private final SuggestionIndex suggestionIndex;
+    private final UsernameFilter usernameFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration batchPause;
+
+    public DeletedUserCleanupJob(UserRepository userRepository, PostRepository postRepository, CommentRepository commentRepository,
+                                 FollowRequestRepository followRequestRepository, PostPurgeJob postPurgeJob, FollowGraph followGraph,
+                                 SuggestionIndex suggestionIndex, UsernameFilter usernameFilter, TransactionTemplate transactionTemplate,
+                                 @Value("${app.users.cleanup.batch-size:500}") int batchSize,
+                                 @Value("${app.users.cleanup.batch-pause:PT0.2S}") Duration batchPause) {
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+        this.followRequestRepository = followRequestRepository;
+        this.postPurgeJob = postPurgeJob;
+        this.followGraph = followGraph;
+        this.suggestionIndex = suggestionIndex;
+        this.usernameFilter = usernameFilter;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+    }
+
+    @Scheduled(initialDelayString = "${app.users.cleanup.interval:PT1M}", fixedDelayString = "${app.users.cleanup.interval:PT1M}")
+    public void run() {
+        try {
+            long removed = cleanUp();
+            if (removed > 0) {
+                log.info("Removed {} deleted users", removed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Cleans up every tombstoned user in id order and returns how many user
+     * rows were removed. A user whose cleanup fails is retried next run.
+     */
+    public long cleanUp() throws InterruptedException {
+        long removed = 0;
+        Long afterId = 0L;
+
+        while (true) {
+            List<Long> userIds = userRepository.findDeletedIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (userIds.isEmpty()) {
+                return removed;
+            }
+
+            for (Long userId : userIds) {
+                try {
+                    if (cleanUp(userId)) {
+                        removed++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Cleaning up deleted user {} failed, retrying next run", userId, e);
+                }
+            }
+            afterId = userIds.get(userIds.size() - 1);
+        }
+    }
+
+    boolean cleanUp(Long userId) throws InterruptedException {
+        inBatches(page -> followRequestRepository.findIdsInvolving(userId, page), followRequestRepository::deleteByIdIn);
+
+        inBatches(page -> userRepository.findFollowingIdsOf(userId, page),
+                followingIds -> {
+                    userRepository.deleteFollowingOf(userId, followingIds);
+                    userRepository.decrementFollowerCounts(followingIds);
+                },
+                followingIds -> followingIds.forEach(followingId -> followGraph.removeEdge(userId, followingId)));
+
+        inBatches(page -> userRepository.findFollowerIdsOf(userId, page),
+                followerIds -> {
+                    userRepository.deleteFollowersOf(userId, followerIds);
+                    userRepository.decrementFollowingCounts(followerIds);
+                },
+                followerIds -> followerIds.forEach(followerId -> {
+                    followGraph.removeEdge(followerId, userId);
+                    suggestionIndex.onUnfollow(followerId);
+                }));
+
+        inBatches(page -> postRepository.findLikedPostIds(userId, page),
+                postIds -> {
+                    postRepository.deleteLikesOfUser(userId, postIds);
+                    postRepository.decrementLikeCounts(postIds);
+                });
+
+        inBatches(page -> commentRepository.findIdsByUserId(userId, page), commentRepository::deleteByIdIn);
+
+        while (!postPurgeJob.purgeBatch(userId, Long.MAX_VALUE).isEmpty()) {
+            Thread.sleep(batchPause.toMillis());
+        }
+
+        Integer deleted = transactionTemplate.execute(status -> userRepository.deleteTombstone(userId));
+        if (deleted == null || deleted == 0) {
+            return false;
+        }
+        usernameFilter.markRemoved();
+        return true;
+    }
+
+    private void inBatches(Function<Pageable, List<Long>> load, Consumer<List<Long>> delete) throws InterruptedException {
+        inBatches(load, delete, ids -> {
+        });
+    }
+
+    /**
+     * Repeats until nothing is left: loads the first batch of ids, deletes
+     * them in one transaction, then runs {@code afterCommit} for the
+     * in-memory state. Deleted rows drop out of the next load, so the first
+     * page is always the next batch.
+     */
+    private void inBatches(Function<Pageable, List<Long>> load, Consumer<List<Long>> delete,
+                           Consumer<List<Long>> afterCommit) throws InterruptedException {
+        while (true) {
+            List<Long> ids = load.apply(PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> delete.accept(ids));
+            afterCommit.accept(ids);
+            if (ids.size() < batchSize) {
+                return;
+            }
+            Thread.sleep(batchPause.toMillis());
+        }
+    }
+}
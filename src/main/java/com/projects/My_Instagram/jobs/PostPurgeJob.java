@@ -0,0 +1,189 @@
+package com.projects.My_Instagram.jobs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projects.My_Instagram.exceptions.AppException;
+import com.projects.My_Instagram.repositories.PostCaptionRow;
+import com.projects.My_Instagram.repositories.PostRepository;
+import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.search.PostSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.projects.My_Instagram.constants.exception.ExceptionMessages.SERVER_BUSY;
+
+/**
+ * Deletes all of a user's posts in the background. Each batch removes the
+ * likes, comments and posts of up to batch-size posts with three set-based
+ * deletes in its own short transaction, then pauses so foreground requests
+ * get connections and locks back. Posts created after the purge started
+ * are kept.
+ *
+ * <p>Purges run on their own small executor and a user has at most one at a
+ * time. Progress is kept in memory for the retention period; a restart
+ * abandons running purges, and starting again picks up what is left.
+ */
+@Component
+public class PostPurgeJob {
+    private static final Logger log = LoggerFactory.getLogger(PostPurgeJob.class);
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    public static class Progress {
+        private final String id;
+        private final Long userId;
+        private final long totalPosts;
+        private final AtomicLong deletedPosts = new AtomicLong();
+        private volatile Status status = Status.QUEUED;
+
+        public Progress(String id, Long userId, long totalPosts) {
+            this.id = id;
+            this.userId = userId;
+            this.totalPosts = totalPosts;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public long getTotalPosts() {
+            return totalPosts;
+        }
+
+        public long getDeletedPosts() {
+            return deletedPosts.get();
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+    }
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final PostSearchIndex postSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor executor;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final Cache<String, Progress> jobs;
+    private final Map<Long, Progress> activeByUser = new ConcurrentHashMap<>();
+
+    public PostPurgeJob(PostRepository postRepository, UserRepository userRepository, PostSearchIndex postSearchIndex,
+                        TransactionTemplate transactionTemplate, @Qualifier("postPurgeExecutor") TaskExecutor executor,
+                        @Value("${app.posts.purge.batch-size:500}") int batchSize,
+                        @Value("${app.posts.purge.batch-pause:PT0.2S}") Duration batchPause,
+                        @Value("${app.posts.purge.retention:PT24H}") Duration retention) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.postSearchIndex = postSearchIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    /**
+     * Queues a purge of every post the user has right now, or returns the
+     * purge already queued or running for them.
+     */
+    public Progress start(Long userId) {
+        Progress active = activeByUser.get(userId);
+        if (active != null) {
+            return active;
+        }
+
+        long upToId = postRepository.findMaxIdByUserId(userId);
+        Progress progress = new Progress(UUID.randomUUID().toString(), userId, postRepository.countByUserIdUpTo(userId, upToId));
+        active = activeByUser.putIfAbsent(userId, progress);
+        if (active != null) {
+            return active;
+        }
+
+        jobs.put(progress.getId(), progress);
+        try {
+            executor.execute(() -> run(progress, upToId));
+        } catch (TaskRejectedException e) {
+            activeByUser.remove(userId, progress);
+            jobs.invalidate(progress.getId());
+            throw new AppException(SERVER_BUSY.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+        }
+        return progress;
+    }
+
+    public Progress get(String jobId) {
+        return jobs.getIfPresent(jobId);
+    }
+
+    void run(Progress progress, long upToId) {
+        Long userId = progress.getUserId();
+        progress.status = Status.RUNNING;
+        try {
+            while (true) {
+                List<PostCaptionRow> batch = purgeBatch(userId, upToId);
+                progress.deletedPosts.addAndGet(batch.size());
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                Thread.sleep(batchPause.toMillis());
+            }
+            progress.status = Status.COMPLETED;
+            log.info("Purged {} posts of user {}", progress.getDeletedPosts(), userId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.status = Status.FAILED;
+        } catch (RuntimeException e) {
+            log.warn("Purging posts of user {} failed after {} posts", userId, progress.getDeletedPosts(), e);
+            progress.status = Status.FAILED;
+        } finally {
+            activeByUser.remove(userId, progress);
+        }
+    }
+
+    /**
+     * Deletes the user's oldest batch of posts with ids up to {@code upToId}
+     * and returns the posts it removed; an empty list means none are left.
+     */
+    List<PostCaptionRow> purgeBatch(Long userId, long upToId) {
+        List<PostCaptionRow> batch = postRepository.findCaptionsByUserIdUpTo(userId, upToId, PageRequest.of(0, batchSize));
+        if (!batch.isEmpty()) {
+            List<Long> postIds = batch.stream().map(PostCaptionRow::id).toList();
+            transactionTemplate.executeWithoutResult(status -> deleteBatch(userId, postIds));
+            batch.forEach(row -> postSearchIndex.remove(row.id(), row.caption()));
+        }
+        return batch;
+    }
+
+    private void deleteBatch(Long userId, List<Long> postIds) {
+        postRepository.deleteLikesOfPosts(postIds);
+        postRepository.deleteCommentsOfPosts(postIds);
+        int deleted = postRepository.deletePosts(postIds);
+        if (deleted > 0) {
+            userRepository.adjustPostCount(userId, -deleted);
+        }
+    }
+}
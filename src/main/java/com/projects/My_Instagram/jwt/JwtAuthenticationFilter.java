@@ -1,10 +1,14 @@
 package com.projects.My_Instagram.jwt;
 
+import com.projects.My_Instagram.security.AuthenticatedUser;
+import com.projects.My_Instagram.security.PrincipalCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,6 +19,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Component
@@ -22,10 +27,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final boolean stateless;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService, PrincipalCache principalCache,
+                                   @Value("${app.security.jwt.stateless:true}") boolean stateless) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.stateless = stateless;
     }
 
     @Override
@@ -38,34 +48,66 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7);
-        String username = jwtUtil.extractUsername(token);
+        Claims claims;
+        try {
+            claims = jwtUtil.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String username = claims.getSubject();
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.isTokenValid(token, userDetails.getUsername())) {
-
-                    Claims claims = jwtUtil.extractAllClaims(token);
-                    List<String> roles = claims.get("roles", List.class);
-
-                    List<SimpleGrantedAuthority> authorities = roles != null 
-                            ? roles.stream()
-                                    .map(SimpleGrantedAuthority::new)
-                                    .collect(Collectors.toList())
-                            : userDetails.getAuthorities().stream()
-                                    .map(a -> new SimpleGrantedAuthority(a.getAuthority()))
-                                    .collect(Collectors.toList());
-                    
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
-
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
-            } catch (Exception e) {
-                System.err.println("Error processing JWT token: " + e.getMessage());
-                e.printStackTrace();
+            if (stateless && userId != null) {
+                authenticateFromClaims(userId);
+            } else {
+                authenticateFromDatabase(claims, username);
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Builds the principal from the token's user id and the principal cache,
+     * using the user's current username and role rather than the token's copy.
+     * A deleted user resolves to nothing and the request stays unauthenticated.
+     */
+    private void authenticateFromClaims(Long userId) {
+        Optional<AuthenticatedUser> principal = principalCache.get(userId);
+        if (principal.isEmpty()) {
+            return;
+        }
+
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + principal.get().role()));
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(principal.get(), null, authorities);
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
+    private void authenticateFromDatabase(Claims claims, String username) {
+        try {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (jwtUtil.isTokenValid(claims, userDetails.getUsername())) {
+
+                List<String> roles = claims.get("roles", List.class);
+
+                List<SimpleGrantedAuthority> authorities = roles != null 
+                        ? roles.stream()
+                                .map(SimpleGrantedAuthority::new)
+                                .collect(Collectors.toList())
+                        : userDetails.getAuthorities().stream()
+                                .map(a -> new SimpleGrantedAuthority(a.getAuthority()))
+                                .collect(Collectors.toList());
+                
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
+
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+            }
+        } catch (Exception e) {
+            System.err.println("Error processing JWT token: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
 }
@@ -5,9 +5,12 @@ import jakarta.persistence.*;
 import java.util.Date;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_comment_post_id", columnList = "post_id, id")
+})
 public class Comment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
     private String content;
     private Date uploadedAt;
@@ -0,0 +1,41 @@
+package com.projects.My_Instagram.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-side view of one row of the user_following join table, so follow
+ * lists can be paged by follow time without touching User's follow sets.
+ * Edges are written through UserRepository's edge queries, never through
+ * this entity.
+ *
+ * <p>idx_user_following_following_at leads with following_id, so it
+ * replaces the single-column idx_user_following_following_id that
+ * User.following used to declare. ddl-auto=update never drops indexes,
+ * so databases that already have the old one must drop it by hand.
+ */
+@Entity
+@Table(
+        name = "user_following",
+        indexes = {
+                @Index(name = "idx_user_following_following_at", columnList = "following_id, followed_at, follower_id"),
+                @Index(name = "idx_user_following_follower_at", columnList = "follower_id, followed_at, following_id")
+        }
+)
+public class Follow {
+    @EmbeddedId
+    private FollowId id;
+
+    @Column(name = "followed_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "timestamp default current_timestamp")
+    private LocalDateTime followedAt;
+
+    public FollowId getId() {
+        return id;
+    }
+
+    public LocalDateTime getFollowedAt() {
+        return followedAt;
+    }
+}
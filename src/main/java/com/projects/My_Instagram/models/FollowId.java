@@ -0,0 +1,43 @@
+package com.projects.My_Instagram.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class FollowId implements Serializable {
+    @Column(name = "follower_id")
+    private Long followerId;
+    @Column(name = "following_id")
+    private Long followingId;
+
+    public FollowId() {
+    }
+
+    public FollowId(Long followerId, Long followingId) {
+        this.followerId = followerId;
+        this.followingId = followingId;
+    }
+
+    public Long getFollowerId() {
+        return followerId;
+    }
+
+    public Long getFollowingId() {
+        return followingId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FollowId that)) return false;
+        return Objects.equals(followerId, that.followerId) && Objects.equals(followingId, that.followingId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(followerId, followingId);
+    }
+}
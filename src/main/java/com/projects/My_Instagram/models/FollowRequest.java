@@ -5,10 +5,16 @@ import jakarta.persistence.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "follow_requests")
+@Table(
+        name = "follow_requests",
+        indexes = {
+                @Index(name = "idx_follow_requests_target_requester_status", columnList = "target_user_id, requester_id, status"),
+                @Index(name = "idx_follow_requests_target_status_id", columnList = "target_user_id, status, id")
+        }
+)
 public class FollowRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @ManyToOne
@@ -16,7 +22,7 @@ public class FollowRequest {
     private User requester;
 
     @ManyToOne
-    @JoinColumn(name = "targetUser_id")
+    @JoinColumn(name = "target_user_id")
     private User targetUser;
     @Enumerated(EnumType.STRING)
     private FollowRequestStatus status;
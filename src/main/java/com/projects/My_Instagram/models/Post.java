@@ -1,6 +1,7 @@
 package com.projects.My_Instagram.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -8,7 +9,12 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "posts")
+@Table(
+        name = "posts",
+        indexes = {
+                @Index(name = "idx_posts_user_uploaded_at", columnList = "user_id, uploaded_at, id")
+        }
+)
 public class Post {
     public Long getId() {
         return id;
@@ -19,19 +25,32 @@ public class Post {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
     private String caption;
     private String imageUrl;
+    @Column(name = "uploaded_at")
     private LocalDateTime uploadedAt;
+    // Only ever set by PostRepository update queries, so a stale entity can't overwrite it
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private Long likeCount = 0L;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
     @ManyToMany(mappedBy = "likedPosts")
+    @BatchSize(size = 50)
     private Set<User> likedUsers = new HashSet<>();
     @OneToMany(mappedBy = "commentedPost", cascade = CascadeType.ALL)
     private List<Comment> comments;
+
+    @PrePersist
+    void onCreate() {
+        if (uploadedAt == null) {
+            uploadedAt = LocalDateTime.now();
+        }
+    }
+
     public Set<User> getLikedUsers() {
         return likedUsers;
     }
@@ -41,6 +60,14 @@ public class Post {
     }
 
 
+    public Long getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(Long likeCount) {
+        this.likeCount = likeCount;
+    }
+
     public String getCaption() {
         return caption;
     }
@@ -0,0 +1,40 @@
+package com.projects.My_Instagram.models;
+
+import com.projects.My_Instagram.helper.SnowflakeIds;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.generator.GeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Hibernate side of {@link SnowflakeId}. Every node writing to the same
+ * database needs its own node id, set through the Hibernate setting
+ * {@value #NODE_ID_SETTING} (spring.jpa.properties.app.ids.node-id).
+ */
+public class SnowflakeIdGenerator implements BeforeExecutionGenerator {
+    public static final String NODE_ID_SETTING = "app.ids.node-id";
+
+    private final SnowflakeIds ids;
+
+    public SnowflakeIdGenerator(SnowflakeId config, Member member, GeneratorCreationContext context) {
+        ConfigurationService configuration = context.getServiceRegistry().getService(ConfigurationService.class);
+        int nodeId = configuration == null ? 0 : configuration.getSetting(NODE_ID_SETTING, StandardConverters.INTEGER, 0);
+        this.ids = new SnowflakeIds(nodeId);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return ids.next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -1,6 +1,7 @@
 package com.projects.My_Instagram.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -18,7 +19,8 @@ public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    @Column(unique = true, nullable = false)
+    // Uniqueness comes from uk_users_username only, whose name signup matches on
+    @Column(nullable = false)
     private String username;
     @Column(nullable = false)
     private String password;
@@ -35,13 +37,60 @@ public class User {
             joinColumns = @JoinColumn(name = "follower_id"),
             inverseJoinColumns = @JoinColumn(name = "following_id")
     )
+    @BatchSize(size = 50)
     private Set<User> following = new HashSet<>();
 
     @ManyToMany(mappedBy = "following")
+    @BatchSize(size = 50)
     private Set<User> followers = new HashSet<>();
 
     private Boolean privateAccount;
 
+    @Column(name = "follower_count", nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private Long followerCount = 0L;
+
+    @Column(name = "following_count", nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private Long followingCount = 0L;
+
+    @Column(name = "post_count", nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private Long postCount = 0L;
+
+    // Only ever set by UserRepository.markDeleted; the row stays until DeletedUserCleanupJob has removed everything else
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "boolean default false")
+    private Boolean deleted = false;
+
+    public Boolean getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(Boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public Long getFollowerCount() {
+        return followerCount;
+    }
+
+    public void setFollowerCount(Long followerCount) {
+        this.followerCount = followerCount;
+    }
+
+    public Long getFollowingCount() {
+        return followingCount;
+    }
+
+    public void setFollowingCount(Long followingCount) {
+        this.followingCount = followingCount;
+    }
+
+    public Long getPostCount() {
+        return postCount;
+    }
+
+    public void setPostCount(Long postCount) {
+        this.postCount = postCount;
+    }
+
     public Boolean getPrivateAccount() {
         return privateAccount;
     }
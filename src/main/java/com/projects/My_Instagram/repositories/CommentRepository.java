@@ -1,10 +1,51 @@
 package com.projects.My_Instagram.repositories;
 
 import com.projects.My_Instagram.models.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByCommentedPostId(Long postId);
+
+    /**
+     * Starts from the post and left-joins its comments, so an empty result
+     * means the post does not exist and no separate existence check is needed.
+     * Posts and comments of deleted users are left out.
+     */
+    @Query("""
+            select new com.projects.My_Instagram.repositories.CommentRow(p.id, o.id, o.privateAccount, c.id, c.content, c.uploadedAt, u.username)
+            from Post p
+            join p.user o
+            left join Comment c on c.commentedPost = p and c.id < :beforeId
+                and c.commentedUser.id not in (select d.id from User d where d.deleted = true)
+            left join c.commentedUser u
+            where p.id = :postId and o.deleted = false
+            order by c.id desc
+            """)
+    List<CommentRow> findNewestPage(@Param("postId") Long postId, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query("""
+            select new com.projects.My_Instagram.repositories.CommentRow(p.id, o.id, o.privateAccount, c.id, c.content, c.uploadedAt, u.username)
+            from Post p
+            join p.user o
+            left join Comment c on c.commentedPost = p and c.id > :afterId
+                and c.commentedUser.id not in (select d.id from User d where d.deleted = true)
+            left join c.commentedUser u
+            where p.id = :postId and o.deleted = false
+            order by c.id asc
+            """)
+    List<CommentRow> findOldestPage(@Param("postId") Long postId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select c.id from Comment c where c.commentedUser.id = :userId order by c.id")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Comment c where c.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,11 @@
+package com.projects.My_Instagram.repositories;
+
+import java.util.Date;
+
+/**
+ * One row of a comment page. A row with a null {@code commentId} means the
+ * post exists but has no comments past the cursor. Every row carries the
+ * post owner's id and privacy flag for the visibility check.
+ */
+public record CommentRow(Long postId, Long ownerId, Boolean ownerPrivate, Long commentId, String content, Date uploadedAt, String username) {
+}
@@ -0,0 +1,42 @@
+package com.projects.My_Instagram.repositories;
+
+import com.projects.My_Instagram.models.Follow;
+import com.projects.My_Instagram.models.FollowId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FollowRepository extends JpaRepository<Follow, FollowId> {
+
+    @Query("""
+            select new com.projects.My_Instagram.repositories.FollowRow(
+                u.id, u.username, u.fullName, u.profilePicUrl, u.privateAccount,
+                u.followerCount, u.followingCount, u.postCount, f.followedAt)
+            from Follow f join User u on u.id = f.id.followerId
+            where f.id.followingId = :userId and u.deleted = false
+              and (f.followedAt < :before or (f.followedAt = :before and f.id.followerId < :beforeId))
+            order by f.followedAt desc, f.id.followerId desc
+            """)
+    List<FollowRow> findFollowers(@Param("userId") Long userId,
+                                  @Param("before") LocalDateTime before,
+                                  @Param("beforeId") Long beforeId,
+                                  Pageable pageable);
+
+    @Query("""
+            select new com.projects.My_Instagram.repositories.FollowRow(
+                u.id, u.username, u.fullName, u.profilePicUrl, u.privateAccount,
+                u.followerCount, u.followingCount, u.postCount, f.followedAt)
+            from Follow f join User u on u.id = f.id.followingId
+            where f.id.followerId = :userId and u.deleted = false
+              and (f.followedAt < :before or (f.followedAt = :before and f.id.followingId < :beforeId))
+            order by f.followedAt desc, f.id.followingId desc
+            """)
+    List<FollowRow> findFollowing(@Param("userId") Long userId,
+                                  @Param("before") LocalDateTime before,
+                                  @Param("beforeId") Long beforeId,
+                                  Pageable pageable);
+}
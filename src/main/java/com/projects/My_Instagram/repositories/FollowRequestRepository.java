@@ -3,8 +3,13 @@ package com.projects.My_Instagram.repositories;
 import com.projects.My_Instagram.models.FollowRequest;
 import com.projects.My_Instagram.models.FollowRequestStatus;
 import com.projects.My_Instagram.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface FollowRequestRepository extends JpaRepository<FollowRequest, Long> {
@@ -15,4 +20,71 @@ public interface FollowRequestRepository extends JpaRepository<FollowRequest, Lo
     );
 
     List<FollowRequest> findByTargetUserAndStatus(User targetUser, FollowRequestStatus status);
+
+    @Query("select r.targetUser.id from FollowRequest r where r.requester.id = :requesterId and r.status = :status")
+    List<Long> findTargetIdsByRequesterIdAndStatus(@Param("requesterId") Long requesterId, @Param("status") FollowRequestStatus status);
+
+    @Query("""
+            select new com.projects.My_Instagram.repositories.FollowRequestRow(r.id, u.username, r.requestedAt)
+            from FollowRequest r join r.requester u
+            where r.targetUser.id = :targetId and r.status = :status and r.id < :beforeId and u.deleted = false
+            order by r.id desc
+            """)
+    List<FollowRequestRow> findPage(@Param("targetId") Long targetId, @Param("status") FollowRequestStatus status,
+                                    @Param("beforeId") Long beforeId, Pageable pageable);
+
+    /**
+     * Removes one request through the (target, requester, status) index;
+     * returns 0 when there was no such request.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from FollowRequest r where r.targetUser.id = :targetId and r.requester.id = :requesterId and r.status = :status")
+    int deleteRequest(@Param("targetId") Long targetId, @Param("requesterId") Long requesterId, @Param("status") FollowRequestStatus status);
+
+    // Bulk accept and reject work on the requests up to this id, so requests arriving mid-way are left for later
+    @Query("select max(r.id) from FollowRequest r where r.targetUser.id = :targetId and r.status = :status")
+    Long findMaxId(@Param("targetId") Long targetId, @Param("status") FollowRequestStatus status);
+
+    @Query("select r.requester.id from FollowRequest r where r.targetUser.id = :targetId and r.status = :status and r.id <= :upToId and r.requester.deleted = false")
+    List<Long> findRequesterIds(@Param("targetId") Long targetId, @Param("status") FollowRequestStatus status, @Param("upToId") Long upToId);
+
+    /**
+     * Bumps the following count of every pending requester that does not
+     * already follow the target and is not marked deleted. Must run before
+     * {@link #insertFollowsFromPending}, which applies the same filters.
+     * Both take the status by name, since native queries don't apply the
+     * entity's EnumType.STRING mapping.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            update users set following_count = following_count + 1
+            where id in (
+                select r.requester_id from follow_requests r
+                where r.target_user_id = :targetId and r.status = :status and r.id <= :upToId
+                  and not exists (select 1 from user_following f where f.follower_id = r.requester_id and f.following_id = :targetId)
+                  and exists (select 1 from users u where u.id = r.requester_id and u.deleted = false)
+            )
+            """, nativeQuery = true)
+    int incrementRequesterFollowingCounts(@Param("targetId") Long targetId, @Param("status") String status, @Param("upToId") Long upToId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            insert into user_following (follower_id, following_id, followed_at)
+            select r.requester_id, :targetId, current_timestamp from follow_requests r
+            where r.target_user_id = :targetId and r.status = :status and r.id <= :upToId
+              and not exists (select 1 from user_following f where f.follower_id = r.requester_id and f.following_id = :targetId)
+              and exists (select 1 from users u where u.id = r.requester_id and u.deleted = false)
+            """, nativeQuery = true)
+    int insertFollowsFromPending(@Param("targetId") Long targetId, @Param("status") String status, @Param("upToId") Long upToId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from FollowRequest r where r.targetUser.id = :targetId and r.status = :status and r.id <= :upToId")
+    int deleteUpTo(@Param("targetId") Long targetId, @Param("status") FollowRequestStatus status, @Param("upToId") Long upToId);
+
+    @Query("select r.id from FollowRequest r where r.requester.id = :userId or r.targetUser.id = :userId order by r.id")
+    List<Long> findIdsInvolving(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from FollowRequest r where r.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
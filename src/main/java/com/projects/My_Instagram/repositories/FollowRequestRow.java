@@ -0,0 +1,6 @@
+package com.projects.My_Instagram.repositories;
+
+import java.util.Date;
+
+public record FollowRequestRow(Long id, String username, Date requestedAt) {
+}
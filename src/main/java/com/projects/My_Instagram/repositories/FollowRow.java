@@ -0,0 +1,11 @@
+package com.projects.My_Instagram.repositories;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of a followers or following page: the user on the other end of
+ * the edge and when the edge was created.
+ */
+public record FollowRow(Long userId, String username, String fullName, String profilePicUrl, Boolean privateAccount,
+                        Long followerCount, Long followingCount, Long postCount, LocalDateTime followedAt) {
+}
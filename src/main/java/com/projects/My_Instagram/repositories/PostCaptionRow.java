@@ -0,0 +1,4 @@
+package com.projects.My_Instagram.repositories;
+
+public record PostCaptionRow(Long id, String caption) {
+}
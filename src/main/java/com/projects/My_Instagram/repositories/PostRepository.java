@@ -2,12 +2,138 @@ package com.projects.My_Instagram.repositories;
 
 import com.projects.My_Instagram.models.Post;
 import com.projects.My_Instagram.models.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
+    // Posts of deleted users are hidden the same way as the users themselves
+    @Query("select p from Post p where p.id = :id and p.user.deleted = false")
+    Optional<Post> findById(@Param("id") Long id);
+
     List<Post> findByUser(User user);
 
-    void deleteByUser(User user);
+    @Query("select coalesce(max(p.id), 0) from Post p where p.user.id = :userId")
+    long findMaxIdByUserId(@Param("userId") Long userId);
+
+    @Query("select count(p) from Post p where p.user.id = :userId and p.id <= :upToId")
+    long countByUserIdUpTo(@Param("userId") Long userId, @Param("upToId") Long upToId);
+
+    @Query("""
+            select new com.projects.My_Instagram.repositories.PostCaptionRow(p.id, p.caption) from Post p
+            where p.user.id = :userId and p.id <= :upToId
+            order by p.id
+            """)
+    List<PostCaptionRow> findCaptionsByUserIdUpTo(@Param("userId") Long userId, @Param("upToId") Long upToId, Pageable pageable);
+
+    // The three deletes below remove a batch of posts set-based, children first, without loading any entity
+    @Modifying
+    @Query(value = "delete from post_likes where post_id in (:postIds)", nativeQuery = true)
+    int deleteLikesOfPosts(@Param("postIds") Collection<Long> postIds);
+
+    @Modifying
+    @Query(value = "delete from comment where post_id in (:postIds)", nativeQuery = true)
+    int deleteCommentsOfPosts(@Param("postIds") Collection<Long> postIds);
+
+    @Modifying
+    @Query(value = "delete from posts where id in (:postIds)", nativeQuery = true)
+    int deletePosts(@Param("postIds") Collection<Long> postIds);
+
+    @Query(value = "select post_id from post_likes where user_id = :userId order by post_id", nativeQuery = true)
+    List<Long> findLikedPostIds(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from post_likes where user_id = :userId and post_id in (:postIds)", nativeQuery = true)
+    int deleteLikesOfUser(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    @Modifying
+    @Query("update Post p set p.likeCount = p.likeCount - 1 where p.id in :postIds and p.likeCount > 0")
+    int decrementLikeCounts(@Param("postIds") Collection<Long> postIds);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("select p from Post p where p.user = :user order by p.uploadedAt desc, p.id desc")
+    List<Post> findLatestByUser(@Param("user") User user, Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("""
+            select p from Post p
+            where p.user = :user
+              and (p.uploadedAt < :uploadedAt or (p.uploadedAt = :uploadedAt and p.id < :id))
+            order by p.uploadedAt desc, p.id desc
+            """)
+    List<Post> findByUserBefore(@Param("user") User user,
+                                @Param("uploadedAt") LocalDateTime uploadedAt,
+                                @Param("id") Long id,
+                                Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("select p from Post p where p.id in :ids and p.user.deleted = false")
+    List<Post> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            select p.id from Post p
+            where p.user.id = :userId
+               or p.user.id in (select f.id from User u join u.following f where u.id = :userId)
+            order by p.id desc
+            """)
+    List<Long> findFeedPostIds(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Inserts the like unless it already exists. Returns 1 if a row was written.
+     * Written as INSERT ... SELECT ... WHERE NOT EXISTS rather than ON CONFLICT so it
+     * also runs on H2; the (user_id, post_id) primary key still rejects a racing duplicate.
+     */
+    @Modifying
+    @Query(value = """
+            insert into post_likes (user_id, post_id)
+            select :userId, :postId
+            where not exists (select 1 from post_likes where user_id = :userId and post_id = :postId)
+            """, nativeQuery = true)
+    int insertLike(@Param("userId") Long userId, @Param("postId") Long postId);
+
+    @Modifying
+    @Query(value = "delete from post_likes where user_id = :userId and post_id = :postId", nativeQuery = true)
+    int deleteLike(@Param("userId") Long userId, @Param("postId") Long postId);
+
+    @Modifying
+    @Query("update Post p set p.likeCount = p.likeCount + :delta where p.id = :postId and p.likeCount + :delta >= 0")
+    int adjustLikeCount(@Param("postId") Long postId, @Param("delta") long delta);
+
+    @Query("select p.id from Post p where p.id > :afterId order by p.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Recomputes like_count from post_likes for posts in (afterId, upToId]
+     * and rewrites only the rows that drifted; returns the number repaired.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            update posts set like_count = (select count(*) from post_likes l where l.post_id = posts.id)
+            where id > :afterId and id <= :upToId
+              and like_count <> (select count(*) from post_likes l where l.post_id = posts.id)
+            """, nativeQuery = true)
+    int reconcileLikeCounts(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+    /**
+     * Returns at most {@code sampleSize} (post id, username) rows per post.
+     */
+    @Query(value = """
+            select ranked.post_id, ranked.username from (
+                select pl.post_id, u.username,
+                       row_number() over (partition by pl.post_id order by pl.user_id desc) as rn
+                from post_likes pl
+                join users u on u.id = pl.user_id
+                where pl.post_id in (:postIds) and u.deleted = false
+            ) ranked
+            where ranked.rn <= :sampleSize
+            """, nativeQuery = true)
+    List<Object[]> findLikerSamples(@Param("postIds") Collection<Long> postIds, @Param("sampleSize") int sampleSize);
 }
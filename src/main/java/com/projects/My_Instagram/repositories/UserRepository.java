@@ -1,11 +1,137 @@
 package com.projects.My_Instagram.repositories;
 
 import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.security.AuthenticatedUser;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Lookups skip users marked deleted, so a deleted account disappears from
+ * every read at once; existsByUsername still sees them because the name
+ * stays taken until the row is removed. DeletedUserCleanupJob works on the
+ * tombstones through the id-based queries at the end.
+ */
 public interface UserRepository extends JpaRepository<User,Long> {
-    Optional<User> findByUsername(String username);
+    @Query("select u from User u where u.id = :id and u.deleted = false")
+    Optional<User> findById(@Param("id") Long id);
+
+    @Query("select u from User u where u.id in :ids and u.deleted = false")
+    List<User> findAllById(@Param("ids") Iterable<Long> ids);
+
+    @Query("select u from User u where u.username = :username and u.deleted = false")
+    Optional<User> findByUsername(@Param("username") String username);
+
     boolean existsByUsername(String username);
+
+    @Query("select u from User u where u.id > :afterId and u.deleted = false order by u.id")
+    List<User> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select u.id from User u where u.username = :username and u.deleted = false")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    @Query("select new com.projects.My_Instagram.security.AuthenticatedUser(u.id, u.username, u.role) from User u where u.id = :id and u.deleted = false")
+    Optional<AuthenticatedUser> findAuthenticatedUserById(@Param("id") Long id);
+
+    @Query("select u.id from User u join u.following f where f.id = :userId and u.id > :afterId and u.deleted = false order by u.id")
+    List<Long> findFollowerIds(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(value = "select count(*) > 0 from user_following where follower_id = :followerId and following_id = :followingId", nativeQuery = true)
+    boolean existsFollow(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+
+    /**
+     * Adds one follow edge unless it already exists; returns the number of rows inserted.
+     * The persistence context is cleared so loaded follow sets are not left stale.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            insert into user_following (follower_id, following_id, followed_at)
+            select :followerId, :followingId, current_timestamp
+            where not exists (select 1 from user_following where follower_id = :followerId and following_id = :followingId)
+            """, nativeQuery = true)
+    int insertFollow(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+
+    /**
+     * Moves the follower's following count and the followed user's follower
+     * count in one statement, so both rows are locked in a single pass.
+     */
+    @Modifying
+    @Query("""
+            update User u set
+                u.followerCount = u.followerCount + case when u.id = :followingId then :delta else 0 end,
+                u.followingCount = u.followingCount + case when u.id = :followerId then :delta else 0 end
+            where u.id in (:followerId, :followingId)
+            """)
+    int adjustFollowCounts(@Param("followerId") Long followerId, @Param("followingId") Long followingId, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update User u set u.followerCount = u.followerCount + :delta where u.id = :userId")
+    int adjustFollowerCount(@Param("userId") Long userId, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update User u set u.postCount = u.postCount + :delta where u.id = :userId and u.postCount + :delta >= 0")
+    int adjustPostCount(@Param("userId") Long userId, @Param("delta") long delta);
+
+    @Query("select u.id from User u where u.id > :afterId order by u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Recomputes the three counters for users in (afterId, upToId] and
+     * rewrites only the rows that drifted; returns the number repaired.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            update users set
+                follower_count = (select count(*) from user_following f where f.following_id = users.id),
+                following_count = (select count(*) from user_following f where f.follower_id = users.id),
+                post_count = (select count(*) from posts p where p.user_id = users.id)
+            where id > :afterId and id <= :upToId
+              and (follower_count <> (select count(*) from user_following f where f.following_id = users.id)
+                or following_count <> (select count(*) from user_following f where f.follower_id = users.id)
+                or post_count <> (select count(*) from posts p where p.user_id = users.id))
+            """, nativeQuery = true)
+    int reconcileCounts(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "delete from user_following where follower_id = :followerId and following_id = :followingId", nativeQuery = true)
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update User u set u.deleted = true where u.id = :userId and u.deleted = false")
+    int markDeleted(@Param("userId") Long userId);
+
+    @Query("select u.id from User u where u.deleted = true and u.id > :afterId order by u.id")
+    List<Long> findDeletedIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(value = "select following_id from user_following where follower_id = :userId order by following_id", nativeQuery = true)
+    List<Long> findFollowingIdsOf(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = "select follower_id from user_following where following_id = :userId order by follower_id", nativeQuery = true)
+    List<Long> findFollowerIdsOf(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from user_following where follower_id = :userId and following_id in (:followingIds)", nativeQuery = true)
+    int deleteFollowingOf(@Param("userId") Long userId, @Param("followingIds") Collection<Long> followingIds);
+
+    @Modifying
+    @Query(value = "delete from user_following where following_id = :userId and follower_id in (:followerIds)", nativeQuery = true)
+    int deleteFollowersOf(@Param("userId") Long userId, @Param("followerIds") Collection<Long> followerIds);
+
+    @Modifying
+    @Query("update User u set u.followerCount = u.followerCount - 1 where u.id in :userIds and u.followerCount > 0")
+    int decrementFollowerCounts(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query("update User u set u.followingCount = u.followingCount - 1 where u.id in :userIds and u.followingCount > 0")
+    int decrementFollowingCounts(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query(value = "delete from users where id = :userId and deleted = true", nativeQuery = true)
+    int deleteTombstone(@Param("userId") Long userId);
 }
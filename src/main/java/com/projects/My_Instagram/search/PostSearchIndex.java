@@ -0,0 +1,230 @@
+package com.projects.My_Instagram.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index from caption words and hashtags to the ids of the
+ * posts using them. A hashtag is indexed both as "#tag" and as the bare
+ * word, so "sunset" also finds "#sunset". Results come newest first, which
+ * is highest id first.
+ *
+ * <p>PostService adds and removes posts after each commit. Posts removed
+ * together with their owner stay listed until the next scheduled reload;
+ * callers load the matching posts anyway and skip ids that are gone.
+ * Changes made while a load runs are replayed onto the loaded index, the
+ * same way as in the follow graph.
+ */
+@Component
+public class PostSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(PostSearchIndex.class);
+    private static final int LOAD_FETCH_SIZE = 10000;
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final Pattern TOKEN = Pattern.compile("#?[\\p{L}\\p{N}_]+");
+
+    private record Change(long postId, String caption, boolean added) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, PostingList> postings;
+    private volatile boolean ready;
+    private List<Change> pendingChanges;
+
+    public PostSearchIndex(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Ascending ids turn every insert into an append
+        Map<String, PostingList> loadedPostings = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("select id, caption from posts order by id");
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) row -> apply(loadedPostings, new Change(row.getLong(1), row.getString(2), true))));
+
+        lock.writeLock().lock();
+        try {
+            for (Change change : pendingChanges) {
+                apply(loadedPostings, change);
+            }
+            pendingChanges = null;
+            postings = loadedPostings;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded post search index with {} terms", loadedPostings.size());
+    }
+
+    @Scheduled(initialDelayString = "${app.search.posts.reload-interval:PT6H}", fixedDelayString = "${app.search.posts.reload-interval:PT6H}")
+    public void reload() {
+        load();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void add(long postId, String caption) {
+        change(new Change(postId, caption, true));
+    }
+
+    public void remove(long postId, String caption) {
+        change(new Change(postId, caption, false));
+    }
+
+    /**
+     * Ids below {@code beforeId} of posts whose caption holds every term of
+     * the query, highest first.
+     */
+    public List<Long> search(String query, long beforeId, int limit) {
+        Set<String> terms = terms(query);
+        if (terms.isEmpty() || terms.size() > MAX_QUERY_TERMS) {
+            return new ArrayList<>();
+        }
+        return match(terms, beforeId, limit);
+    }
+
+    /**
+     * Ids below {@code beforeId} of posts tagged with {@code tag}, with or
+     * without the leading '#', highest first.
+     */
+    public List<Long> searchTag(String tag, long beforeId, int limit) {
+        String word = normalize(tag.startsWith("#") ? tag.substring(1) : tag);
+        if (!TOKEN.matcher(word).matches()) {
+            return new ArrayList<>();
+        }
+        return match(Set.of("#" + word), beforeId, limit);
+    }
+
+    private List<Long> match(Set<String> terms, long beforeId, int limit) {
+        List<Long> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (postings == null) {
+                return ids;
+            }
+
+            List<PostingList> lists = new ArrayList<>();
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return ids;
+                }
+                lists.add(list);
+            }
+
+            // Walk the rarest term and probe the others
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            PostingList rarest = lists.get(0);
+            List<PostingList> others = lists.subList(1, lists.size());
+            rarest.forEachDescending(beforeId, id -> {
+                for (PostingList other : others) {
+                    if (!other.contains(id)) {
+                        return true;
+                    }
+                }
+                ids.add(id);
+                return ids.size() < limit;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    private void change(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (postings != null) {
+                apply(postings, change);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Map<String, PostingList> postings, Change change) {
+        for (String term : terms(change.caption())) {
+            if (change.added()) {
+                postings.computeIfAbsent(term, key -> new PostingList()).add(change.postId());
+            } else {
+                PostingList list = postings.get(term);
+                if (list != null && list.remove(change.postId()) && list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * The hashtags of a caption, lower-cased and without the '#'.
+     */
+    public static Set<String> hashtags(String caption) {
+        Set<String> tags = new LinkedHashSet<>();
+        for (String term : terms(caption)) {
+            if (term.startsWith("#")) {
+                tags.add(term.substring(1));
+            }
+        }
+        return tags;
+    }
+
+    static Set<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+
+        Matcher matcher = TOKEN.matcher(normalize(text));
+        while (matcher.find()) {
+            String token = matcher.group();
+            if (token.startsWith("#")) {
+                terms.add(token);
+                token = token.substring(1);
+            }
+            terms.add(token);
+        }
+        return terms;
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+}
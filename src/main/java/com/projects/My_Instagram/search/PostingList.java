@@ -0,0 +1,255 @@
+package com.projects.My_Instagram.search;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Sorted post ids for one term, stored as variable-length deltas in blocks
+ * of up to {@link #BLOCK_SIZE} ids. Each block keeps its first and last id
+ * uncompressed, so a lookup binary searches the block bounds and decodes a
+ * single block. Post ids only grow, so the common write is an append to the
+ * last block; inserts and removals elsewhere re-encode one block.
+ *
+ * <p>Not thread-safe; {@link PostSearchIndex} guards every list with its lock.
+ */
+final class PostingList {
+    static final int BLOCK_SIZE = 128;
+
+    private long[] firstIds = new long[1];
+    private long[] lastIds = new long[1];
+    private int[] counts = new int[1];
+    // deltas of ids 2..count of each block, unsigned LEB128
+    private byte[][] blocks = new byte[1][];
+    private int[] lengths = new int[1];
+    private int blockCount;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean add(long id) {
+        if (blockCount == 0 || id > lastIds[blockCount - 1]) {
+            append(id);
+            return true;
+        }
+
+        int block = blockFor(id);
+        long[] ids = decode(block);
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return false;
+        }
+
+        position = -position - 1;
+        long[] updated = new long[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, position);
+        updated[position] = id;
+        System.arraycopy(ids, position, updated, position + 1, ids.length - position);
+        size++;
+
+        if (updated.length > 2 * BLOCK_SIZE) {
+            int half = updated.length / 2;
+            encode(block, Arrays.copyOfRange(updated, 0, half));
+            insertBlock(block + 1);
+            encode(block + 1, Arrays.copyOfRange(updated, half, updated.length));
+        } else {
+            encode(block, updated);
+        }
+        return true;
+    }
+
+    boolean remove(long id) {
+        if (blockCount == 0 || id < firstIds[0] || id > lastIds[blockCount - 1]) {
+            return false;
+        }
+
+        int block = blockFor(id);
+        long[] ids = decode(block);
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return false;
+        }
+
+        size--;
+        if (ids.length == 1) {
+            removeBlock(block);
+            return true;
+        }
+
+        long[] updated = new long[ids.length - 1];
+        System.arraycopy(ids, 0, updated, 0, position);
+        System.arraycopy(ids, position + 1, updated, position, updated.length - position);
+        encode(block, updated);
+        return true;
+    }
+
+    boolean contains(long id) {
+        if (blockCount == 0 || id < firstIds[0] || id > lastIds[blockCount - 1]) {
+            return false;
+        }
+
+        int block = blockFor(id);
+        if (id > lastIds[block]) {
+            return false;
+        }
+        if (id == firstIds[block] || id == lastIds[block]) {
+            return true;
+        }
+
+        byte[] data = blocks[block];
+        long current = firstIds[block];
+        int offset = 0;
+        while (current < id) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+        }
+        return current == id;
+    }
+
+    /**
+     * Visits ids below {@code beforeId}, highest first, until the action
+     * returns false.
+     */
+    void forEachDescending(long beforeId, LongPredicate action) {
+        for (int block = blockBefore(beforeId); block >= 0; block--) {
+            long[] ids = decode(block);
+            for (int i = ids.length - 1; i >= 0; i--) {
+                if (ids[i] < beforeId && !action.test(ids[i])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void append(long id) {
+        int last = blockCount - 1;
+        if (blockCount == 0 || counts[last] >= BLOCK_SIZE) {
+            insertBlock(blockCount);
+            last = blockCount - 1;
+            firstIds[last] = id;
+            lastIds[last] = id;
+            counts[last] = 1;
+            blocks[last] = new byte[16];
+            lengths[last] = 0;
+            size++;
+            return;
+        }
+
+        long delta = id - lastIds[last];
+        if (lengths[last] + 10 > blocks[last].length) {
+            blocks[last] = Arrays.copyOf(blocks[last], blocks[last].length * 2);
+        }
+        lengths[last] = writeVarLong(blocks[last], lengths[last], delta);
+        lastIds[last] = id;
+        counts[last]++;
+        size++;
+    }
+
+    // last block whose first id is <= id, or 0 when id sorts before every block
+    private int blockFor(long id) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firstIds[mid] <= id) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // last block holding an id below beforeId, or -1
+    private int blockBefore(long beforeId) {
+        if (blockCount == 0 || firstIds[0] >= beforeId) {
+            return -1;
+        }
+        return blockFor(beforeId - 1);
+    }
+
+    private long[] decode(int block) {
+        long[] ids = new long[counts[block]];
+        byte[] data = blocks[block];
+        long current = firstIds[block];
+        ids[0] = current;
+        int offset = 0;
+        for (int i = 1; i < ids.length; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+            ids[i] = current;
+        }
+        return ids;
+    }
+
+    private void encode(int block, long[] ids) {
+        byte[] data = new byte[Math.max(16, (ids.length - 1) * 10)];
+        int length = 0;
+        for (int i = 1; i < ids.length; i++) {
+            length = writeVarLong(data, length, ids[i] - ids[i - 1]);
+        }
+        firstIds[block] = ids[0];
+        lastIds[block] = ids[ids.length - 1];
+        counts[block] = ids.length;
+        blocks[block] = Arrays.copyOf(data, Math.max(16, length));
+        lengths[block] = length;
+    }
+
+    private void insertBlock(int block) {
+        if (blockCount == firstIds.length) {
+            int capacity = firstIds.length * 2;
+            firstIds = Arrays.copyOf(firstIds, capacity);
+            lastIds = Arrays.copyOf(lastIds, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            blocks = Arrays.copyOf(blocks, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        int moved = blockCount - block;
+        System.arraycopy(firstIds, block, firstIds, block + 1, moved);
+        System.arraycopy(lastIds, block, lastIds, block + 1, moved);
+        System.arraycopy(counts, block, counts, block + 1, moved);
+        System.arraycopy(blocks, block, blocks, block + 1, moved);
+        System.arraycopy(lengths, block, lengths, block + 1, moved);
+        blockCount++;
+    }
+
+    private void removeBlock(int block) {
+        int moved = blockCount - block - 1;
+        System.arraycopy(firstIds, block + 1, firstIds, block, moved);
+        System.arraycopy(lastIds, block + 1, lastIds, block, moved);
+        System.arraycopy(counts, block + 1, counts, block, moved);
+        System.arraycopy(blocks, block + 1, blocks, block, moved);
+        System.arraycopy(lengths, block + 1, lengths, block, moved);
+        blockCount--;
+        blocks[blockCount] = null;
+    }
+
+    private static int writeVarLong(byte[] data, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            data[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[offset++] = (byte) value;
+        return offset;
+    }
+}
@@ -0,0 +1,328 @@
+package com.projects.My_Instagram.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Radix trie from lowercase terms to ids, answering "best ids whose term
+ * starts with this prefix". Ids are ranked by a caller-supplied score, with
+ * higher scores first and lower ids breaking ties.
+ *
+ * <p>A node whose subtree holds more than {@code denseSubtree} postings keeps
+ * a precomputed list of its best ids, so short, popular prefixes are answered
+ * without walking the subtree. Smaller subtrees are cheap to walk and carry
+ * no list. Each list holds twice the result size, so removals rarely force a
+ * refill. A list is always the exact best entries of its subtree: an id that
+ * would rank after every listed entry is not appended, since ids evicted
+ * earlier might rank ahead of it.
+ *
+ * <p>All terms of an id must be added and removed together. Not thread-safe.
+ */
+class PrefixIndex {
+    private static final long[] NO_IDS = new long[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final int topK;
+    private final int denseSubtree;
+    private final Comparator<Long> ranking;
+    private final Node root = new Node("");
+
+    PrefixIndex(int topK, int denseSubtree, LongUnaryOperator score) {
+        this.topK = topK;
+        this.denseSubtree = denseSubtree;
+        this.ranking = Comparator.comparingLong((Long id) -> -score.applyAsLong(id)).thenComparingLong(id -> id);
+    }
+
+    void add(long id, Collection<String> terms) {
+        for (String term : terms) {
+            List<Node> path = pathFor(term);
+            Node terminal = path.get(path.size() - 1);
+            if (indexOf(terminal.ids, terminal.ids.length, id) >= 0) {
+                continue;
+            }
+            terminal.ids = Arrays.copyOf(terminal.ids, terminal.ids.length + 1);
+            terminal.ids[terminal.ids.length - 1] = id;
+
+            root.count++;
+            for (int i = 1; i < path.size(); i++) {
+                Node node = path.get(i);
+                node.count++;
+                if (node.top != null) {
+                    offer(node, id);
+                } else if (node.count > denseSubtree) {
+                    rebuildTop(node);
+                }
+            }
+        }
+    }
+
+    void remove(long id, Collection<String> terms) {
+        for (String term : terms) {
+            List<Node> path = existingPath(term);
+            if (path == null) {
+                continue;
+            }
+            Node terminal = path.get(path.size() - 1);
+            int position = indexOf(terminal.ids, terminal.ids.length, id);
+            if (position < 0) {
+                continue;
+            }
+            terminal.ids = without(terminal.ids, position);
+
+            root.count--;
+            for (int i = 1; i < path.size(); i++) {
+                Node node = path.get(i);
+                node.count--;
+                if (node.top == null) {
+                    continue;
+                }
+                if (node.count <= denseSubtree) {
+                    node.top = null;
+                    node.topSize = 0;
+                    continue;
+                }
+                int topPosition = indexOf(node.top, node.topSize, id);
+                if (topPosition >= 0) {
+                    System.arraycopy(node.top, topPosition + 1, node.top, topPosition, node.topSize - topPosition - 1);
+                    node.topSize--;
+                    if (node.topSize < topK) {
+                        rebuildTop(node);
+                    }
+                }
+            }
+            prune(path);
+        }
+    }
+
+    List<Long> search(String prefix, int limit) {
+        Node node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(pos));
+            if (index < 0) {
+                return new ArrayList<>();
+            }
+            Node child = node.children[index];
+            int length = Math.min(child.label.length(), prefix.length() - pos);
+            if (!prefix.regionMatches(pos, child.label, 0, length)) {
+                return new ArrayList<>();
+            }
+            node = child;
+            pos += length;
+        }
+
+        if (node.top != null && node.topSize >= limit) {
+            List<Long> results = new ArrayList<>();
+            for (int i = 0; i < limit; i++) {
+                results.add(node.top[i]);
+            }
+            return results;
+        }
+        return best(node, limit);
+    }
+
+    int size() {
+        return root.count;
+    }
+
+    // Walks to the node for term, splitting edges and adding nodes as needed; starts with the root
+    private List<Node> pathFor(String term) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int pos = 0;
+        while (pos < term.length()) {
+            int index = node.childIndex(term.charAt(pos));
+            if (index < 0) {
+                Node leaf = new Node(term.substring(pos));
+                node.insertChild(-index - 1, leaf);
+                path.add(leaf);
+                return path;
+            }
+
+            Node child = node.children[index];
+            int common = commonPrefixLength(child.label, term, pos);
+            if (common < child.label.length()) {
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[]{child};
+                middle.count = child.count;
+                if (child.top != null) {
+                    middle.top = child.top.clone();
+                    middle.topSize = child.topSize;
+                }
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            pos += common;
+        }
+        return path;
+    }
+
+    private List<Node> existingPath(String term) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int pos = 0;
+        while (pos < term.length()) {
+            int index = node.childIndex(term.charAt(pos));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            if (!term.startsWith(node.label, pos)) {
+                return null;
+            }
+            path.add(node);
+            pos += node.label.length();
+        }
+        return path;
+    }
+
+    // Drops emptied nodes and re-merges nodes left with a single child and no ids of their own
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i >= 1; i--) {
+            Node node = path.get(i);
+            if (node.count == 0) {
+                path.get(i - 1).removeChild(node);
+            } else if (node.ids.length == 0 && node.children.length == 1) {
+                Node child = node.children[0];
+                node.label = node.label + child.label;
+                node.children = child.children;
+                node.ids = child.ids;
+                node.top = child.top;
+                node.topSize = child.topSize;
+            }
+        }
+    }
+
+    private void offer(Node node, long id) {
+        if (indexOf(node.top, node.topSize, id) >= 0) {
+            return;
+        }
+        int position = node.topSize;
+        while (position > 0 && ranking.compare(id, node.top[position - 1]) < 0) {
+            position--;
+        }
+        if (position == node.topSize) {
+            return;
+        }
+
+        int moved = Math.min(node.topSize, node.top.length - 1) - position;
+        System.arraycopy(node.top, position, node.top, position + 1, moved);
+        node.top[position] = id;
+        node.topSize = Math.min(node.topSize + 1, node.top.length);
+    }
+
+    private void rebuildTop(Node node) {
+        List<Long> best = best(node, topK * 2);
+        node.top = new long[topK * 2];
+        for (int i = 0; i < best.size(); i++) {
+            node.top[i] = best.get(i);
+        }
+        node.topSize = best.size();
+    }
+
+    private List<Long> best(Node node, int limit) {
+        Set<Long> ids = new HashSet<>();
+        collect(node, ids);
+
+        List<Long> sorted = new ArrayList<>(ids);
+        sorted.sort(ranking);
+        return new ArrayList<>(sorted.subList(0, Math.min(limit, sorted.size())));
+    }
+
+    private static void collect(Node node, Set<Long> ids) {
+        for (long id : node.ids) {
+            ids.add(id);
+        }
+        for (Node child : node.children) {
+            collect(child, ids);
+        }
+    }
+
+    private static int commonPrefixLength(String label, String term, int from) {
+        int max = Math.min(label.length(), term.length() - from);
+        int i = 0;
+        while (i < max && label.charAt(i) == term.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int indexOf(long[] values, int size, long value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long[] without(long[] values, int position) {
+        if (values.length == 1) {
+            return NO_IDS;
+        }
+        long[] trimmed = new long[values.length - 1];
+        System.arraycopy(values, 0, trimmed, 0, position);
+        System.arraycopy(values, position + 1, trimmed, position, values.length - position - 1);
+        return trimmed;
+    }
+
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN;
+        // Ids whose term ends exactly at this node
+        long[] ids = NO_IDS;
+        // Postings in this subtree, counting each (term, id) once
+        int count;
+        long[] top;
+        int topSize;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        // Children are kept sorted by the first character of their label
+        int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char candidate = children[middle].label.charAt(0);
+                if (candidate < first) {
+                    low = middle + 1;
+                } else if (candidate > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int position, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, position);
+            grown[position] = child;
+            System.arraycopy(children, position, grown, position + 1, children.length - position);
+            children = grown;
+        }
+
+        void removeChild(Node child) {
+            int position = childIndex(child.label.charAt(0));
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, position);
+            System.arraycopy(children, position + 1, shrunk, position, children.length - position - 1);
+            children = shrunk.length == 0 ? NO_CHILDREN : shrunk;
+        }
+    }
+}
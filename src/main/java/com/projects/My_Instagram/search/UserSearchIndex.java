@@ -0,0 +1,191 @@
+package com.projects.My_Instagram.search;
+
+import com.projects.My_Instagram.helper.CursorCodec;
+import com.projects.My_Instagram.models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory typeahead over usernames and full names. A user is indexed
+ * under the username, the whole full name and each word of it. Matches are
+ * ranked by follower count.
+ *
+ * <p>UserService keeps the index current on signup, profile edits and
+ * deletes. Follower counts move on every follow, so the ranking uses the
+ * counts from the last full load; a scheduled reload refreshes them.
+ * Changes made while a load runs are replayed onto the loaded index, the
+ * same way as in the follow graph.
+ */
+@Component
+public class UserSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+    private static final int LOAD_FETCH_SIZE = 10000;
+    public static final int MAX_RESULTS = 20;
+    private static final int DENSE_SUBTREE = 256;
+
+    public record Entry(long id, String username, String fullName, String profilePicUrl, long followerCount) {
+    }
+
+    // entry == null records a removal
+    private record Change(long id, Entry entry) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, Entry> entries = new HashMap<>();
+    private PrefixIndex index;
+    private volatile boolean ready;
+    private List<Change> pendingChanges;
+
+    public UserSearchIndex(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, Entry> loadedEntries = new HashMap<>();
+        PrefixIndex loadedIndex = newIndex(loadedEntries);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("select id, username, full_name, profile_pic_url, follower_count from users where deleted = false");
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) row -> apply(loadedEntries, loadedIndex, new Change(row.getLong(1),
+                new Entry(row.getLong(1), row.getString(2), row.getString(3), row.getString(4), row.getLong(5))))));
+
+        lock.writeLock().lock();
+        try {
+            for (Change change : pendingChanges) {
+                apply(loadedEntries, loadedIndex, change);
+            }
+            pendingChanges = null;
+            entries = loadedEntries;
+            index = loadedIndex;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded user search index with {} users", loadedEntries.size());
+    }
+
+    @Scheduled(initialDelayString = "${app.search.users.reload-interval:PT1H}", fixedDelayString = "${app.search.users.reload-interval:PT1H}")
+    public void reload() {
+        load();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(User user) {
+        change(new Change(user.getId(), new Entry(user.getId(), user.getUsername(), user.getFullName(), user.getProfilePicUrl(),
+                user.getFollowerCount() == null ? 0 : user.getFollowerCount())));
+    }
+
+    public void remove(long userId) {
+        change(new Change(userId, null));
+    }
+
+    /**
+     * Best matches for a prefix of a username, a full name or any word of a
+     * full name, most followed first.
+     */
+    public List<Entry> search(String query, int limit) {
+        String prefix = normalize(query);
+        List<Entry> results = new ArrayList<>();
+        if (prefix.isEmpty()) {
+            return results;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return results;
+            }
+            for (Long id : index.search(prefix, CursorCodec.clampLimit(limit, MAX_RESULTS))) {
+                results.add(entries.get(id));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    private void change(Change change) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                apply(entries, index, change);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void apply(Map<Long, Entry> entries, PrefixIndex index, Change change) {
+        // The index ranks through the map, so the entry must outlive its removal from the index
+        Entry previous = entries.get(change.id());
+        if (previous != null) {
+            index.remove(previous.id(), terms(previous));
+            entries.remove(change.id());
+        }
+        if (change.entry() != null) {
+            entries.put(change.id(), change.entry());
+            index.add(change.id(), terms(change.entry()));
+        }
+    }
+
+    private static PrefixIndex newIndex(Map<Long, Entry> entries) {
+        return new PrefixIndex(MAX_RESULTS, DENSE_SUBTREE, id -> entries.get(id).followerCount());
+    }
+
+    static Set<String> terms(Entry entry) {
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add(normalize(entry.username()));
+        String fullName = normalize(entry.fullName());
+        if (!fullName.isEmpty()) {
+            terms.add(fullName);
+            for (String word : fullName.split(" ")) {
+                terms.add(word);
+            }
+        }
+        terms.remove("");
+        return terms;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,16 @@
+package com.projects.My_Instagram.security;
+
+import com.projects.My_Instagram.models.Role;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal built from a verified token and the principal cache, used
+ * instead of loading the full {@code User} entity on every request.
+ */
+public record AuthenticatedUser(Long id, String username, Role role) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,65 @@
+package com.projects.My_Instagram.security;
+
+import com.projects.My_Instagram.exceptions.AppException;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static com.projects.My_Instagram.constants.exception.ExceptionMessages.SERVER_BUSY;
+
+/**
+ * Runs the delegate's hashing and verification on a bounded executor, so a
+ * login storm can only occupy that pool. Once its queue is full, callers are
+ * turned away with 429 straight away instead of piling up on request threads.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final AsyncTaskExecutor executor;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, AsyncTaskExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> result;
+        try {
+            result = executor.submit(task);
+        } catch (TaskRejectedException e) {
+            throw new AppException(SERVER_BUSY.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AppException(SERVER_BUSY.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.projects.My_Instagram.security;
+
+import com.projects.My_Instagram.exceptions.UserNotFoundException;
+import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.repositories.UserRepository;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import static com.projects.My_Instagram.constants.exception.ExceptionMessages.USER_NOT_FOUND;
+
+/**
+ * The authenticated user for the current request. The id is resolved from the
+ * principal once per request, so callers that only need the id or an
+ * association reference never touch the users table.
+ */
+@Component
+@RequestScope
+public class CurrentUserContext {
+    private final UserRepository userRepository;
+    private Long id;
+
+    public CurrentUserContext(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public Long getId() {
+        if (id == null) {
+            id = resolveId();
+        }
+        return id;
+    }
+
+    /**
+     * Returns an uninitialized proxy keyed by id, good for setting associations
+     * and id comparisons without a query.
+     */
+    public User getReference() {
+        return userRepository.getReferenceById(getId());
+    }
+
+    /**
+     * Loads the full user by primary key. Inside a transaction repeated calls
+     * are served from the persistence context.
+     */
+    public User get() {
+        return userRepository.findById(getId())
+                .orElseThrow(() -> new UserNotFoundException(USER_NOT_FOUND.getMessage()));
+    }
+
+    private Long resolveId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Object principal = authentication.getPrincipal();
+
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.id();
+        }
+        if (principal instanceof CustomUserDetails userDetails) {
+            return userDetails.getId();
+        }
+
+        return userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new UserNotFoundException(USER_NOT_FOUND.getMessage()))
+                .getId();
+    }
+}
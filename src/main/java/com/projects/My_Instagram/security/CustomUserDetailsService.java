@@ -3,7 +3,9 @@ package com.projects.My_Instagram.security;
 import com.projects.My_Instagram.exceptions.UserNotFoundException;
 import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.repositories.UserRepository;
+import jakarta.transaction.Transactional;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -11,7 +13,7 @@ import org.springframework.stereotype.Service;
 import static com.projects.My_Instagram.constants.exception.ExceptionMessages.*;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
     public CustomUserDetailsService(UserRepository userRepository) {
@@ -25,4 +27,18 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         return new CustomUserDetails(user);
     }
+
+    /**
+     * Called by the authentication provider after a successful login whose
+     * stored hash was made with a lower BCrypt cost than the configured one.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UserNotFoundException(USER_NOT_FOUND.getMessage()));
+        user.setPassword(newPassword);
+
+        return new CustomUserDetails(user);
+    }
 }
@@ -0,0 +1,45 @@
+package com.projects.My_Instagram.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projects.My_Instagram.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Current id, username and role per user id, so token authentication does not
+ * query the users table on every request. Entries are dropped explicitly when a
+ * user is renamed or deleted and expire after a short TTL otherwise, which
+ * bounds how long any other change (such as a role edit in the database) can
+ * go unnoticed. A deleted user is cached as empty and is rejected.
+ */
+@Component
+public class PrincipalCache {
+    private final UserRepository userRepository;
+    private final Cache<Long, Optional<AuthenticatedUser>> principals;
+
+    public PrincipalCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                          @Value("${app.security.principal-cache.size:100000}") long size,
+                          @Value("${app.security.principal-cache.ttl:PT30S}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "security.principals");
+    }
+
+    public Optional<AuthenticatedUser> get(Long userId) {
+        return principals.get(userId, userRepository::findAuthenticatedUserById);
+    }
+
+    public void invalidate(Long userId) {
+        principals.invalidate(userId);
+    }
+}
@@ -1,20 +1,24 @@
 package com.projects.My_Instagram.services;
 
 import com.projects.My_Instagram.DTOs.response.CommentResponse;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.exceptions.AccessDeniedException;
+import com.projects.My_Instagram.exceptions.AppException;
 import com.projects.My_Instagram.exceptions.CommentNotFoundException;
 import com.projects.My_Instagram.exceptions.PostNotFoundException;
+import com.projects.My_Instagram.helper.CursorCodec;
 import com.projects.My_Instagram.helper.UserUtils;
 import com.projects.My_Instagram.models.Comment;
 import com.projects.My_Instagram.models.Post;
 import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.repositories.CommentRepository;
-import com.projects.My_Instagram.repositories.PostRepository;
-import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.repositories.CommentRow;
+import com.projects.My_Instagram.security.CurrentUserContext;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -25,42 +29,42 @@ import static com.projects.My_Instagram.helper.Helper.*;
 
 @Service
 public class CommentService {
+    private static final int MAX_PAGE_SIZE = 50;
+
     private final CommentRepository commentRepository;
-    private final UserRepository userRepository;
-    private final PostRepository postRepository;
     private final UserUtils userUtils;
+    private final CurrentUserContext currentUserContext;
+    private final VisibilityService visibilityService;
 
-    public CommentService(CommentRepository commentRepository, UserRepository userRepository, PostRepository postRepository, UserUtils userUtils) {
+    public CommentService(CommentRepository commentRepository, UserUtils userUtils, CurrentUserContext currentUserContext,
+                          VisibilityService visibilityService) {
         this.commentRepository = commentRepository;
-        this.userRepository = userRepository;
-        this.postRepository = postRepository;
         this.userUtils = userUtils;
+        this.currentUserContext = currentUserContext;
+        this.visibilityService = visibilityService;
     }
 
+    @Transactional
     public ResponseEntity<CommentResponse> createComment(Long postId, String content) {
-        User currentUser = fetchCurrentUser();
+        User currentUser = currentUserContext.get();
+        Post commentedPost = userUtils.fetchPost(postId);
+        if (!visibilityService.canView(currentUser.getId(), commentedPost.getUser())) {
+            throw new AppException(YOU_CANNOT_LIKE.getMessage(), HttpStatus.UNAUTHORIZED);
+        }
+
         Comment comment = new Comment();
         comment.setContent(content);
         comment.setUploadedAt(new Date());
         comment.setCommentedUser(currentUser);
-        Post commentedPost = userUtils.fetchPost(postId);
         comment.setCommentedPost(commentedPost);
         Comment savedComment = commentRepository.save(comment);
         return ResponseEntity.status(HttpStatus.CREATED).body(formCommentResponse(savedComment));
     }
 
-    private User fetchCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        Optional<User> user = userRepository.findByUsername(username);
-        return user.get();
-    }
-
     public ResponseEntity<String> deleteComment(Long commentId) {
         Comment comment = fetchComment(commentId);
-        User currentUser = fetchCurrentUser();
 
-        if(!Objects.equals(comment.getCommentedUser().getUsername(), currentUser.getUsername())){
+        if(!Objects.equals(comment.getCommentedUser().getId(), currentUserContext.getId())){
             throw new AccessDeniedException(UNAUTHORIZED.getMessage());
         }
 
@@ -78,17 +82,42 @@ public class CommentService {
         return comment.get();
     }
 
-    public ResponseEntity<List<CommentResponse>> getAllComments(Long postId) {
-        List<CommentResponse> comments = new ArrayList<>();
+    /**
+     * Returns one page of comments with their authors in a single query.
+     * {@code oldestFirst} flips the order; the cursor is the last comment id seen.
+     */
+    public ResponseEntity<PageResponse<CommentResponse>> getAllComments(Long postId, String cursor, int limit, boolean oldestFirst) {
+        int pageSize = CursorCodec.clampLimit(limit, MAX_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<CommentRow> rows;
+        if (oldestFirst) {
+            rows = commentRepository.findOldestPage(postId, cursor == null ? 0L : CursorCodec.decodeId(cursor), pageable);
+        } else {
+            rows = commentRepository.findNewestPage(postId, cursor == null ? Long.MAX_VALUE : CursorCodec.decodeId(cursor), pageable);
+        }
 
-        if(postRepository.findById(postId).isEmpty()){
+        if (rows.isEmpty()) {
             throw new PostNotFoundException(POST_NOT_FOUND.getMessage());
         }
 
-        for (Comment comment : commentRepository.findByCommentedPostId(postId)) {
-            comments.add(formCommentResponse(comment));
+        CommentRow first = rows.get(0);
+        if (!visibilityService.canView(currentUserContext.getId(), first.ownerId(), first.ownerPrivate())) {
+            throw new AppException(PRIVATE_ACCOUNT.getMessage(), HttpStatus.FORBIDDEN);
+        }
+
+        List<CommentResponse> comments = new ArrayList<>();
+        for (CommentRow row : rows) {
+            if (row.commentId() != null && comments.size() < pageSize) {
+                comments.add(new CommentResponse(row.username(), row.uploadedAt(), row.content()));
+            }
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            nextCursor = CursorCodec.encode(rows.get(pageSize - 1).commentId());
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(comments);
+        return ResponseEntity.status(HttpStatus.OK).body(new PageResponse<>(comments, nextCursor));
     }
 }
@@ -0,0 +1,132 @@
+package com.projects.My_Instagram.services;
+
+import com.projects.My_Instagram.DTOs.response.PageResponse;
+import com.projects.My_Instagram.DTOs.response.PostResponse;
+import com.projects.My_Instagram.helper.CursorCodec;
+import com.projects.My_Instagram.helper.Helper;
+import com.projects.My_Instagram.models.Post;
+import com.projects.My_Instagram.repositories.PostRepository;
+import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.security.CurrentUserContext;
+import com.projects.My_Instagram.timeline.Timeline;
+import com.projects.My_Instagram.timeline.TimelineStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class FeedService {
+    private static final int MAX_PAGE_SIZE = 50;
+    // Timeline reads per feed page before handing back a cursor; bounds the work when most entries are filtered out
+    private static final int MAX_FEED_ROUNDS = 5;
+
+    private final TimelineStore timelineStore;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final CurrentUserContext currentUserContext;
+    private final VisibilityService visibilityService;
+    private final int fanoutBatchSize;
+
+    public FeedService(TimelineStore timelineStore, PostRepository postRepository, UserRepository userRepository, CurrentUserContext currentUserContext,
+                       VisibilityService visibilityService, @Value("${app.feed.fanout-batch-size:1000}") int fanoutBatchSize) {
+        this.timelineStore = timelineStore;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.currentUserContext = currentUserContext;
+        this.visibilityService = visibilityService;
+        this.fanoutBatchSize = fanoutBatchSize;
+    }
+
+    /**
+     * A page of the stored timeline, newest first. Posts whose owner is gone
+     * or no longer visible to the viewer are skipped and more of the
+     * timeline is read to fill the page. The cursor is the last timeline id
+     * looked at, so a page cut short by {@link #MAX_FEED_ROUNDS} can be
+     * empty and still carry a cursor.
+     */
+    public PageResponse<PostResponse> getFeed(String cursor, int limit) {
+        Long viewerId = currentUserContext.getId();
+        Timeline timeline = timelineStore.getOrLoad(viewerId, this::loadTimeline);
+        int pageSize = CursorCodec.clampLimit(limit, MAX_PAGE_SIZE);
+        Long beforeId = cursor == null ? null : CursorCodec.decodeId(cursor);
+        List<Post> page = new ArrayList<>();
+
+        for (int round = 0; round < MAX_FEED_ROUNDS; round++) {
+            long[] postIds = timeline.page(beforeId, pageSize + 1);
+            List<Long> ids = new ArrayList<>(postIds.length);
+            for (long postId : postIds) {
+                ids.add(postId);
+            }
+
+            Map<Long, Post> postsById = new HashMap<>();
+            if (!ids.isEmpty()) {
+                for (Post post : postRepository.findAllWithUserByIdIn(ids)) {
+                    postsById.put(post.getId(), post);
+                }
+            }
+
+            for (Long id : ids) {
+                Post post = postsById.get(id);
+                if (post == null || !visibilityService.canView(viewerId, post.getUser())) {
+                    beforeId = id;
+                    continue;
+                }
+                if (page.size() == pageSize) {
+                    return new PageResponse<>(formPostResponses(page), CursorCodec.encode(page.get(pageSize - 1).getId()));
+                }
+                page.add(post);
+                beforeId = id;
+            }
+
+            if (ids.size() <= pageSize) {
+                return new PageResponse<>(formPostResponses(page), null);
+            }
+        }
+
+        return new PageResponse<>(formPostResponses(page), CursorCodec.encode(beforeId));
+    }
+
+    private List<PostResponse> formPostResponses(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Object[]> likerSamples = postRepository.findLikerSamples(Helper.postIds(posts), Helper.LIKED_USERS_SAMPLE_SIZE);
+        return Helper.formPostResponses(posts, likerSamples);
+    }
+
+    /**
+     * Pushes a freshly created post into the author's timeline and into the
+     * timeline of every follower, walking the followers in id-ordered batches.
+     */
+    @Async("feedFanoutExecutor")
+    public void fanOutPost(Long authorId, Long postId) {
+        timelineStore.pushIfPresent(authorId, postId);
+
+        Long afterId = 0L;
+        List<Long> followerIds;
+        do {
+            followerIds = userRepository.findFollowerIds(authorId, afterId, PageRequest.of(0, fanoutBatchSize));
+            for (Long followerId : followerIds) {
+                timelineStore.pushIfPresent(followerId, postId);
+            }
+
+            if (!followerIds.isEmpty()) {
+                afterId = followerIds.get(followerIds.size() - 1);
+            }
+        } while (followerIds.size() == fanoutBatchSize);
+    }
+
+    private long[] loadTimeline(Long userId) {
+        return postRepository.findFeedPostIds(userId, PageRequest.of(0, timelineStore.getCapacity()))
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+}
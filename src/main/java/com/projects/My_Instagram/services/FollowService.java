@@ -1,58 +1,118 @@
 package com.projects.My_Instagram.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.projects.My_Instagram.DTOs.response.FollowRequestResponse;
+import com.projects.My_Instagram.DTOs.response.FollowedByResponse;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
+import com.projects.My_Instagram.DTOs.response.RelationshipResponse;
+import com.projects.My_Instagram.DTOs.response.SuggestionResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
 import com.projects.My_Instagram.constants.exception.ExceptionMessages;
 import com.projects.My_Instagram.constants.response.ResponseMessages;
 import com.projects.My_Instagram.exceptions.AppException;
+import com.projects.My_Instagram.graph.FollowGraph;
+import com.projects.My_Instagram.graph.SuggestionIndex;
+import com.projects.My_Instagram.helper.AfterCommit;
+import com.projects.My_Instagram.helper.Constraints;
+import com.projects.My_Instagram.helper.CursorCodec;
 import com.projects.My_Instagram.helper.Helper;
 import com.projects.My_Instagram.helper.UserUtils;
 import com.projects.My_Instagram.models.FollowRequest;
 import com.projects.My_Instagram.models.FollowRequestStatus;
 import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.repositories.FollowRepository;
 import com.projects.My_Instagram.repositories.FollowRequestRepository;
+import com.projects.My_Instagram.repositories.FollowRequestRow;
+import com.projects.My_Instagram.repositories.FollowRow;
 import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.security.CurrentUserContext;
+import com.projects.My_Instagram.timeline.TimelineStore;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import jakarta.transaction.Transactional;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
+@Transactional
 public class FollowService {
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int EXPORT_BATCH_SIZE = 1000;
+    private static final int FOLLOWED_BY_SAMPLE_SIZE = 3;
+    // Keyset start for the first page: later than any real follow time
+    private static final LocalDateTime FIRST_PAGE_BEFORE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final UserUtils userUtils;
     private final UserRepository userRepository;
     private final FollowRequestRepository followRequestRepository;
-
-    public FollowService(UserUtils userUtils, UserRepository userRepository, FollowRequestRepository followRequestRepository) {
+    private final FollowRepository followRepository;
+    private final CurrentUserContext currentUserContext;
+    private final ObjectMapper objectMapper;
+    private final FollowGraph followGraph;
+    private final SuggestionIndex suggestionIndex;
+    private final TimelineStore timelineStore;
+
+    public FollowService(UserUtils userUtils, UserRepository userRepository, FollowRequestRepository followRequestRepository,
+                         FollowRepository followRepository, CurrentUserContext currentUserContext, ObjectMapper objectMapper,
+                         FollowGraph followGraph, SuggestionIndex suggestionIndex, TimelineStore timelineStore) {
         this.userUtils = userUtils;
         this.userRepository = userRepository;
         this.followRequestRepository = followRequestRepository;
+        this.followRepository = followRepository;
+        this.currentUserContext = currentUserContext;
+        this.objectMapper = objectMapper;
+        this.followGraph = followGraph;
+        this.suggestionIndex = suggestionIndex;
+        this.timelineStore = timelineStore;
     }
 
+    private interface FollowPageQuery {
+        List<FollowRow> fetch(Long userId, LocalDateTime before, Long beforeId, Pageable pageable);
+    }
+
+    /**
+     * Works on the single user_following row: a primary-key probe, then a
+     * conditional insert. Neither user's follow sets are loaded.
+     */
     public ResponseEntity<String> followUser(String username) {
-        User currectUser = userUtils.fetchCurrectUser();
+        Long currectUserId = currentUserContext.getId();
         User user = userUtils.fetchUser(username);
 
-        if (currectUser.getId().equals(user.getId())) {
+        if (currectUserId.equals(user.getId())) {
             throw new AppException(ExceptionMessages.FOLLOW_SELF.getMessage(), HttpStatus.BAD_REQUEST);
         }
 
-        if (currectUser.getFollowing().contains(user)) {
+        if (userRepository.existsFollow(currectUserId, user.getId())) {
             throw new AppException(ExceptionMessages.ALREADY_FOLLOWING.getMessage(), HttpStatus.CONFLICT);
         }
 
         if (user.getPrivateAccount()) {
-            return sendFollowRequest(currectUser, user);
+            return sendFollowRequest(currentUserContext.getReference(), user);
         }
 
-        currectUser.getFollowing().add(user);
-        user.getFollowers().add(currectUser);
-
-        userRepository.save(currectUser);
-        userRepository.save(user);
+        if (insertFollow(currectUserId, user.getId()) == 0) {
+            throw new AppException(ExceptionMessages.ALREADY_FOLLOWING.getMessage(), HttpStatus.CONFLICT);
+        }
+        userRepository.adjustFollowCounts(currectUserId, user.getId(), 1);
+        Long followingId = user.getId();
+        AfterCommit.run(() -> recordFollow(currectUserId, followingId));
 
         return ResponseEntity.status(HttpStatus.CREATED).body(ResponseMessages.FOLLOW_SUCCESS.getMessage());
     }
@@ -81,93 +141,278 @@ public class FollowService {
     }
 
     public ResponseEntity<String> unfollowUser(String username) {
-        User currectUser = userUtils.fetchCurrectUser();
         User user = userUtils.fetchUser(username);
 
-        if (!currectUser.getFollowing().contains(user)) {
+        if (userRepository.deleteFollow(currentUserContext.getId(), user.getId()) == 0) {
             throw new AppException(ExceptionMessages.NOT_FOLLOWING.getMessage(), HttpStatus.NOT_FOUND);
         }
+        Long currectUserId = currentUserContext.getId();
+        Long followingId = user.getId();
+        userRepository.adjustFollowCounts(currectUserId, followingId, -1);
+        AfterCommit.run(() -> recordUnfollow(currectUserId, followingId));
+
+        return ResponseEntity.status(HttpStatus.OK).body(ResponseMessages.UNFOLLOW_SUCCESS.getMessage());
+    }
+
+    /**
+     * "Followed by X, Y and N others you follow": the people the current user
+     * follows who also follow {@code username}, intersected in the follow graph.
+     */
+    public FollowedByResponse getFollowedBy(String username) {
+        if (!followGraph.isReady()) {
+            throw new AppException(ExceptionMessages.FOLLOW_GRAPH_LOADING.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
 
-        currectUser.getFollowing().remove(user);
-        user.getFollowers().remove(currectUser);
+        User target = userUtils.fetchUser(username);
+        RoaringBitmap overlap = followGraph.followedByFollowing(currentUserContext.getId(), target.getId());
 
-        userRepository.save(currectUser);
-        userRepository.save(user);
+        List<Long> sampleIds = new ArrayList<>();
+        for (int id : overlap.limit(FOLLOWED_BY_SAMPLE_SIZE)) {
+            sampleIds.add((long) id);
+        }
 
-        return ResponseEntity.status(HttpStatus.OK).body(ResponseMessages.UNFOLLOW_SUCCESS.getMessage());
+        List<String> usernames = new ArrayList<>();
+        for (User user : userRepository.findAllById(sampleIds)) {
+            usernames.add(user.getUsername());
+        }
+
+        return new FollowedByResponse(usernames, overlap.getCardinality());
     }
 
-    public List<UserResponse> getFollowers() {
-        User user = userUtils.fetchCurrectUser();
-        List<UserResponse> followers = new ArrayList<>();
-        for (User follower : user.getFollowers()) {
-            followers.add(Helper.formUserResponse(follower));
+    /**
+     * Accounts followed by many of the people the current user follows, from
+     * the precomputed index, minus accounts already followed or requested.
+     */
+    public List<SuggestionResponse> getSuggestions(int limit) {
+        if (!followGraph.isReady()) {
+            throw new AppException(ExceptionMessages.FOLLOW_GRAPH_LOADING.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
         }
 
-        return followers;
+        Long currectUserId = currentUserContext.getId();
+        int[] pairs = suggestionIndex.get(currectUserId);
+        if (pairs == null) {
+            throw new AppException(ExceptionMessages.SUGGESTIONS_LOADING.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        Set<Long> requested = new HashSet<>(followRequestRepository.findTargetIdsByRequesterIdAndStatus(currectUserId, FollowRequestStatus.PENDING));
+        int size = CursorCodec.clampLimit(limit, MAX_PAGE_SIZE);
+
+        Map<Long, Integer> picked = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length && picked.size() < size; i += 2) {
+            long candidate = pairs[i];
+            if (!requested.contains(candidate) && !followGraph.isFollowing(currectUserId, candidate)) {
+                picked.put(candidate, pairs[i + 1]);
+            }
+        }
+
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : userRepository.findAllById(picked.keySet())) {
+            usersById.put(user.getId(), user);
+        }
+
+        List<SuggestionResponse> suggestions = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : picked.entrySet()) {
+            User user = usersById.get(entry.getKey());
+            if (user != null) {
+                suggestions.add(new SuggestionResponse(Helper.formUserResponse(user), entry.getValue()));
+            }
+        }
+
+        return suggestions;
     }
 
-    public List<UserResponse> getFollowing() {
-        User user = userUtils.fetchCurrectUser();
-        List<UserResponse> following = new ArrayList<>();
-        for (User follower : user.getFollowing()) {
-            following.add(Helper.formUserResponse(follower));
+    public RelationshipResponse getRelationship(String username) {
+        Long currectUserId = currentUserContext.getId();
+        Long targetId = userUtils.fetchUser(username).getId();
+
+        if (followGraph.isReady()) {
+            return new RelationshipResponse(followGraph.isFollowing(currectUserId, targetId), followGraph.isFollowing(targetId, currectUserId));
         }
 
-        return following;
+        return new RelationshipResponse(userRepository.existsFollow(currectUserId, targetId), userRepository.existsFollow(targetId, currectUserId));
     }
 
-    public List<FollowRequestResponse> getAllFollowRequests() {
-        User user = userUtils.fetchCurrectUser();
-        List<FollowRequestResponse> followRequests = new ArrayList<>();
-        for (FollowRequest followRequest : followRequestRepository.findByTargetUserAndStatus(user, FollowRequestStatus.PENDING)) {
-            followRequests.add(new FollowRequestResponse(followRequest.getRequester().getUsername(), followRequest.getRequestedAt()));
+    /**
+     * Newest followers first, read as projections from user_following. The
+     * cursor is the (followed at, user id) of the last entry returned.
+     */
+    public PageResponse<UserResponse> getFollowers(String cursor, int limit) {
+        return page(followRepository::findFollowers, cursor, limit);
+    }
+
+    public PageResponse<UserResponse> getFollowing(String cursor, int limit) {
+        return page(followRepository::findFollowing, cursor, limit);
+    }
+
+    /**
+     * Streams every follower as NDJSON. The body runs after the request
+     * thread is released, outside any transaction, and holds one batch at a time.
+     */
+    public StreamingResponseBody exportFollowers() {
+        Long userId = currentUserContext.getId();
+        return out -> export(followRepository::findFollowers, userId, out);
+    }
+
+    public StreamingResponseBody exportFollowing() {
+        Long userId = currentUserContext.getId();
+        return out -> export(followRepository::findFollowing, userId, out);
+    }
+
+    private PageResponse<UserResponse> page(FollowPageQuery query, String cursor, int limit) {
+        int pageSize = CursorCodec.clampLimit(limit, MAX_PAGE_SIZE);
+        LocalDateTime before = FIRST_PAGE_BEFORE;
+        Long beforeId = Long.MAX_VALUE;
+        if (cursor != null) {
+            String[] position = CursorCodec.decode(cursor, 2);
+            before = CursorCodec.parseTimestamp(position[0]);
+            beforeId = CursorCodec.parseId(position[1]);
         }
 
-        return followRequests;
+        List<FollowRow> rows = query.fetch(currentUserContext.getId(), before, beforeId, PageRequest.of(0, pageSize + 1));
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            FollowRow last = rows.get(pageSize - 1);
+            nextCursor = CursorCodec.encode(last.followedAt(), last.userId());
+        }
+
+        List<UserResponse> users = new ArrayList<>();
+        for (FollowRow row : rows) {
+            users.add(Helper.formUserResponse(row));
+        }
+
+        return new PageResponse<>(users, nextCursor);
     }
 
-    public ResponseEntity<String> acceptFollowRequest(String username) {
-        User currectUser = userUtils.fetchCurrectUser();
-        List<FollowRequest> followRequests = followRequestRepository.findByTargetUserAndStatus(currectUser, FollowRequestStatus.PENDING);
+    // The follower's timeline is rebuilt on their next read, with or without the other account's posts
+    // A follow row inserted concurrently by another request trips the primary key instead of the NOT EXISTS check
+    private int insertFollow(Long followerId, Long followingId) {
+        try {
+            return userRepository.insertFollow(followerId, followingId);
+        } catch (DataIntegrityViolationException e) {
+            throw concurrentFollow(e);
+        }
+    }
 
-        FollowRequest followRequest = findFollowRequest(username, followRequests);
+    private static RuntimeException concurrentFollow(DataIntegrityViolationException e) {
+        if (Constraints.isUniqueViolation(e)) {
+            return new AppException(ExceptionMessages.CONCURRENT_UPDATE.getMessage(), HttpStatus.CONFLICT);
+        }
+        return e;
+    }
 
-        if (followRequest == null)
-            throw new AppException(ExceptionMessages.FOLLOW_REQUEST_NOT_FOUND.getMessage(), HttpStatus.NOT_FOUND);
+    private void recordFollow(Long followerId, Long followingId) {
+        followGraph.addEdge(followerId, followingId);
+        suggestionIndex.onFollow(followerId, followingId);
+        timelineStore.invalidate(followerId);
+    }
+
+    private void recordUnfollow(Long followerId, Long followingId) {
+        followGraph.removeEdge(followerId, followingId);
+        suggestionIndex.onUnfollow(followerId);
+        timelineStore.invalidate(followerId);
+    }
+
+    private void export(FollowPageQuery query, Long userId, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(UserResponse.class);
+        Pageable batch = PageRequest.of(0, EXPORT_BATCH_SIZE);
+
+        List<FollowRow> rows = query.fetch(userId, FIRST_PAGE_BEFORE, Long.MAX_VALUE, batch);
+        while (!rows.isEmpty()) {
+            for (FollowRow row : rows) {
+                out.write(writer.writeValueAsBytes(Helper.formUserResponse(row)));
+                out.write('\n');
+            }
+            out.flush();
+            if (rows.size() < EXPORT_BATCH_SIZE) {
+                return;
+            }
+
+            FollowRow last = rows.get(rows.size() - 1);
+            rows = query.fetch(userId, last.followedAt(), last.userId(), batch);
+        }
+    }
+
+    public PageResponse<FollowRequestResponse> getAllFollowRequests(String cursor, int limit) {
+        Long beforeId = cursor == null ? Long.MAX_VALUE : CursorCodec.decodeId(cursor);
+        int size = CursorCodec.clampLimit(limit, MAX_PAGE_SIZE);
+
+        List<FollowRequestRow> rows = followRequestRepository.findPage(currentUserContext.getId(), FollowRequestStatus.PENDING,
+                beforeId, PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
 
-        User requester = followRequest.getRequester();
-        currectUser.getFollowers().add(requester);
-        requester.getFollowing().add(currectUser);
+        List<FollowRequestResponse> followRequests = new ArrayList<>();
+        for (FollowRequestRow row : rows) {
+            followRequests.add(new FollowRequestResponse(row.username(), row.requestedAt()));
+        }
+        String nextCursor = hasMore ? CursorCodec.encode(rows.get(rows.size() - 1).id()) : null;
 
-        userRepository.save(currectUser);
-        userRepository.save(requester);
+        return new PageResponse<>(followRequests, nextCursor);
+    }
 
-        followRequestRepository.delete(followRequest);
+    public ResponseEntity<String> acceptFollowRequest(String username) {
+        Long currectUserId = currentUserContext.getId();
+        Long requesterId = deleteFollowRequest(currectUserId, username);
+
+        if (insertFollow(requesterId, currectUserId) == 1) {
+            userRepository.adjustFollowCounts(requesterId, currectUserId, 1);
+            AfterCommit.run(() -> recordFollow(requesterId, currectUserId));
+        }
 
         return ResponseEntity.status(HttpStatus.OK).body(ResponseMessages.FOLLOW_REQUEST_ACCEPTED.getMessage());
     }
 
     public ResponseEntity<String> rejectFollowRequest(String username) {
-        User currectUser = userUtils.fetchCurrectUser();
-        List<FollowRequest> followRequests = followRequestRepository.findByTargetUserAndStatus(currectUser, FollowRequestStatus.PENDING);
+        deleteFollowRequest(currentUserContext.getId(), username);
 
-        FollowRequest followRequest = findFollowRequest(username, followRequests);
+        return ResponseEntity.status(HttpStatus.OK).body(ResponseMessages.FOLLOW_REQUEST_REJECTED.getMessage());
+    }
 
-        if (followRequest == null)
-            throw new AppException(ExceptionMessages.FOLLOW_REQUEST_NOT_FOUND.getMessage(), HttpStatus.NOT_FOUND);
+    /**
+     * Accepts every pending request in a handful of set-based statements:
+     * requester counters, the follow rows, the target's counter, then the
+     * request rows. Requests that arrive while this runs stay pending.
+     */
+    public ResponseEntity<String> acceptAllFollowRequests() {
+        Long currectUserId = currentUserContext.getId();
+        Long upToId = followRequestRepository.findMaxId(currectUserId, FollowRequestStatus.PENDING);
+        int accepted = 0;
+
+        if (upToId != null) {
+            List<Long> requesterIds = followRequestRepository.findRequesterIds(currectUserId, FollowRequestStatus.PENDING, upToId);
+            followRequestRepository.incrementRequesterFollowingCounts(currectUserId, FollowRequestStatus.PENDING.name(), upToId);
+            try {
+                accepted = followRequestRepository.insertFollowsFromPending(currectUserId, FollowRequestStatus.PENDING.name(), upToId);
+            } catch (DataIntegrityViolationException e) {
+                throw concurrentFollow(e);
+            }
+            userRepository.adjustFollowerCount(currectUserId, accepted);
+            followRequestRepository.deleteUpTo(currectUserId, FollowRequestStatus.PENDING, upToId);
+
+            AfterCommit.run(() -> requesterIds.forEach(requesterId -> recordFollow(requesterId, currectUserId)));
+        }
 
-        followRequestRepository.delete(followRequest);
+        return ResponseEntity.status(HttpStatus.OK).body(String.format(ResponseMessages.FOLLOW_REQUESTS_ACCEPTED.getMessage(), accepted));
+    }
 
-        return ResponseEntity.status(HttpStatus.OK).body(ResponseMessages.FOLLOW_REQUEST_REJECTED.getMessage());
+    public ResponseEntity<String> rejectAllFollowRequests() {
+        int rejected = followRequestRepository.deleteUpTo(currentUserContext.getId(), FollowRequestStatus.PENDING, Long.MAX_VALUE);
+
+        return ResponseEntity.status(HttpStatus.OK).body(String.format(ResponseMessages.FOLLOW_REQUESTS_REJECTED.getMessage(), rejected));
     }
 
-    private  FollowRequest findFollowRequest(String username, List<FollowRequest> followRequests) {
+    // Returns the requester's id once their pending request is gone
+    private Long deleteFollowRequest(Long targetId, String username) {
+        Long requesterId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new AppException(ExceptionMessages.FOLLOW_REQUEST_NOT_FOUND.getMessage(), HttpStatus.NOT_FOUND));
+
+        if (followRequestRepository.deleteRequest(targetId, requesterId, FollowRequestStatus.PENDING) == 0) {
+            throw new AppException(ExceptionMessages.FOLLOW_REQUEST_NOT_FOUND.getMessage(), HttpStatus.NOT_FOUND);
+        }
 
-        return followRequests
-                .stream()
-                .filter(req -> req.getRequester().getUsername().equals(username))
-                .findFirst()
-                .orElse(null);
+        return requesterId;
     }
 }
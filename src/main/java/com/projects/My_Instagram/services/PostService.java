@@ -1,125 +1,277 @@
 package com.projects.My_Instagram.services;
 
 import com.projects.My_Instagram.DTOs.request.PostRequest;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.DTOs.response.PostResponse;
+import com.projects.My_Instagram.DTOs.response.PurgeJobResponse;
+import com.projects.My_Instagram.DTOs.response.TrendingTagResponse;
 import com.projects.My_Instagram.exceptions.AccessDeniedException;
 import com.projects.My_Instagram.exceptions.AppException;
 import com.projects.My_Instagram.exceptions.PostNotFoundException;
 import com.projects.My_Instagram.exceptions.UserNotFoundException;
+import com.projects.My_Instagram.helper.AfterCommit;
+import com.projects.My_Instagram.helper.Constraints;
+import com.projects.My_Instagram.helper.CursorCodec;
 import com.projects.My_Instagram.helper.Helper;
 import com.projects.My_Instagram.helper.UserUtils;
+import com.projects.My_Instagram.jobs.PostPurgeJob;
 import com.projects.My_Instagram.models.Post;
 import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.repositories.PostRepository;
 import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.search.PostSearchIndex;
+import com.projects.My_Instagram.security.CurrentUserContext;
+import com.projects.My_Instagram.trending.TrendingTags;
 import jakarta.transaction.Transactional;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 
 import static com.projects.My_Instagram.constants.exception.ExceptionMessages.*;
 import static com.projects.My_Instagram.constants.response.ResponseMessages.*;
 
 @Service
 public class PostService {
+    private static final int MAX_PAGE_SIZE = 50;
+    // Index lookups per search page before handing back a cursor; bounds the work when most matches are private
+    private static final int MAX_SEARCH_ROUNDS = 5;
+
+    private interface IndexLookup {
+        List<Long> find(long beforeId, int limit);
+    }
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final UserUtils userUtils;
+    private final FeedService feedService;
+    private final CurrentUserContext currentUserContext;
+    private final VisibilityService visibilityService;
+    private final PostSearchIndex postSearchIndex;
+    private final TrendingTags trendingTags;
+    private final PostPurgeJob postPurgeJob;
 
-    public PostService(PostRepository postRepository, UserRepository userRepository, UserUtils userUtils) {
+    public PostService(PostRepository postRepository, UserRepository userRepository, UserUtils userUtils, FeedService feedService,
+                       CurrentUserContext currentUserContext, VisibilityService visibilityService, PostSearchIndex postSearchIndex,
+                       TrendingTags trendingTags, PostPurgeJob postPurgeJob) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
         this.userUtils = userUtils;
+        this.feedService = feedService;
+        this.currentUserContext = currentUserContext;
+        this.visibilityService = visibilityService;
+        this.postSearchIndex = postSearchIndex;
+        this.trendingTags = trendingTags;
+        this.postPurgeJob = postPurgeJob;
     }
 
     private User getUser(String username) {
         return userRepository.findByUsername(username).orElseThrow(() -> new UserNotFoundException(USER_NOT_FOUND.getMessage()));
     }
 
+    @Transactional
     public PostResponse createPost(PostRequest postRequest) throws RuntimeException {
-     User currentUser = fetchCurrectUser();
+        User currentUser = currentUserContext.get();
         Post post = new Post();
         post.setCaption(postRequest.getCaption());
         post.setImageUrl(postRequest.getImageUrl());
         post.setUploadedAt(LocalDateTime.now());
         post.setUser(currentUser);
 
-        return Helper.formPostResponse(postRepository.save(post));
-    }
-
-    private User fetchCurrectUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        Optional<User> user = userRepository.findByUsername(username);
-        return user.get();
+        Post savedPost = postRepository.save(post);
+        userRepository.adjustPostCount(currentUser.getId(), 1);
+        AfterCommit.run(() -> {
+            feedService.fanOutPost(currentUser.getId(), savedPost.getId());
+            postSearchIndex.add(savedPost.getId(), savedPost.getCaption());
+            // Trending is public, so tags from private accounts stay out of it
+            if (!Boolean.TRUE.equals(currentUser.getPrivateAccount())) {
+                trendingTags.record(PostSearchIndex.hashtags(savedPost.getCaption()));
+            }
+        });
+        return Helper.formPostResponse(savedPost);
     }
 
+    @Transactional
     public void deletePost(Long post_id) {
         Post post = userUtils.fetchPost(post_id);
-        User currectUser = fetchCurrectUser();
 
-        if(!Objects.equals(post.getUser().getUsername(), currectUser.getUsername())){
+        if(!Objects.equals(post.getUser().getId(), currentUserContext.getId())){
             throw new AccessDeniedException(UNAUTHORIZED.getMessage());
         }
 
         postRepository.deleteById(post_id);
+        userRepository.adjustPostCount(currentUserContext.getId(), -1);
+        AfterCommit.run(() -> postSearchIndex.remove(post_id, post.getCaption()));
     }
 
-    public List<PostResponse> getAllPostOfUser(String username){
+    public PageResponse<PostResponse> getAllPostOfUser(String username, String cursor, int limit){
         User user = getUser(username);
-        List<PostResponse> allPosts = new ArrayList<>();
-        for (Post post : postRepository.findByUser(user)) {
-            allPosts.add(Helper.formPostResponse(post));
+        if (!visibilityService.canView(currentUserContext.getId(), user)) {
+            throw new AppException(PRIVATE_ACCOUNT.getMessage(), HttpStatus.FORBIDDEN);
+        }
+        int pageSize = CursorCodec.clampLimit(limit, MAX_PAGE_SIZE);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Post> posts;
+        if (cursor == null) {
+            posts = postRepository.findLatestByUser(user, pageable);
+        } else {
+            String[] position = CursorCodec.decode(cursor, 2);
+            posts = postRepository.findByUserBefore(user, CursorCodec.parseTimestamp(position[0]), CursorCodec.parseId(position[1]), pageable);
+        }
+
+        String nextCursor = null;
+        if (posts.size() > pageSize) {
+            posts = posts.subList(0, pageSize);
+            Post last = posts.get(pageSize - 1);
+            nextCursor = CursorCodec.encode(last.getUploadedAt(), last.getId());
         }
 
-        return allPosts;
+        return new PageResponse<>(formPostResponses(posts), nextCursor);
     }
 
-    @Transactional
-    public void deleteAllPostOfUser(){
-        User user = fetchCurrectUser();
-        postRepository.deleteByUser(user);
+    public PageResponse<PostResponse> searchPosts(String query, String cursor, int limit) {
+        return searchPage((beforeId, batchSize) -> postSearchIndex.search(query, beforeId, batchSize), cursor, limit);
+    }
+
+    public PageResponse<PostResponse> getPostsByTag(String tag, String cursor, int limit) {
+        return searchPage((beforeId, batchSize) -> postSearchIndex.searchTag(tag, beforeId, batchSize), cursor, limit);
+    }
+
+    public List<TrendingTagResponse> getTrendingTags(int limit) {
+        int size = CursorCodec.clampLimit(limit, MAX_PAGE_SIZE);
+        List<TrendingTagResponse> tags = new ArrayList<>();
+        for (TrendingTags.Trend trend : trendingTags.getTrending()) {
+            if (tags.size() == size) {
+                break;
+            }
+            tags.add(new TrendingTagResponse(trend.tag(), trend.lastHourCount(), trend.score()));
+        }
+        return tags;
+    }
+
+    /**
+     * Pages through index matches newest first, dropping posts that are gone
+     * or that the viewer may not see. The cursor is the last post id looked
+     * at, so a page cut short by {@link #MAX_SEARCH_ROUNDS} can be empty and
+     * still carry a cursor.
+     */
+    private PageResponse<PostResponse> searchPage(IndexLookup lookup, String cursor, int limit) {
+        if (!postSearchIndex.isReady()) {
+            throw new AppException(SEARCH_INDEX_LOADING.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        Long viewerId = currentUserContext.getId();
+        int pageSize = CursorCodec.clampLimit(limit, MAX_PAGE_SIZE);
+        long beforeId = cursor == null ? Long.MAX_VALUE : CursorCodec.decodeId(cursor);
+        List<Post> page = new ArrayList<>();
+
+        for (int round = 0; round < MAX_SEARCH_ROUNDS; round++) {
+            List<Long> ids = lookup.find(beforeId, pageSize + 1);
+            Map<Long, Post> postsById = new HashMap<>();
+            if (!ids.isEmpty()) {
+                for (Post post : postRepository.findAllWithUserByIdIn(ids)) {
+                    postsById.put(post.getId(), post);
+                }
+            }
+
+            for (Long id : ids) {
+                Post post = postsById.get(id);
+                if (post == null || !visibilityService.canView(viewerId, post.getUser())) {
+                    beforeId = id;
+                    continue;
+                }
+                if (page.size() == pageSize) {
+                    return new PageResponse<>(formPostResponses(page), CursorCodec.encode(page.get(pageSize - 1).getId()));
+                }
+                page.add(post);
+                beforeId = id;
+            }
+
+            if (ids.size() <= pageSize) {
+                return new PageResponse<>(formPostResponses(page), null);
+            }
+        }
+
+        return new PageResponse<>(formPostResponses(page), CursorCodec.encode(beforeId));
+    }
+
+    private List<PostResponse> formPostResponses(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Object[]> likerSamples = postRepository.findLikerSamples(Helper.postIds(posts), Helper.LIKED_USERS_SAMPLE_SIZE);
+        return Helper.formPostResponses(posts, likerSamples);
+    }
+
+    /**
+     * Queues a background purge of the current user's posts and returns
+     * its progress; the purge itself runs in batches on PostPurgeJob.
+     */
+    public PurgeJobResponse deleteAllPostOfUser(){
+        return Helper.formPurgeJobResponse(postPurgeJob.start(currentUserContext.getId()));
     }
 
+    public PurgeJobResponse getPurgeJob(String jobId) {
+        PostPurgeJob.Progress progress = postPurgeJob.get(jobId);
+        if (progress == null || !Objects.equals(progress.getUserId(), currentUserContext.getId())) {
+            throw new AppException(PURGE_JOB_NOT_FOUND.getMessage(), HttpStatus.NOT_FOUND);
+        }
+        return Helper.formPurgeJobResponse(progress);
+    }
+
+    /**
+     * Likes a post with one conditional insert into post_likes; the liker set
+     * is never loaded. The status and message tell whether anything changed.
+     */
+    @Transactional
     public ResponseEntity<String> likePost(Long post_id){
-        User currectUser = fetchCurrectUser();
+        Long currectUserId = currentUserContext.getId();
         Post post = userUtils.fetchPost(post_id);
-        User postOwner = post.getUser();
 
-        if(postOwner.getPrivateAccount() && !postOwner.getFollowers().contains(currectUser) && !postOwner.getId().equals(currectUser.getId())){
+        if(!visibilityService.canView(currectUserId, post.getUser())){
             throw new AppException(YOU_CANNOT_LIKE.getMessage(), HttpStatus.UNAUTHORIZED);
         }
 
-        if (post.getLikedUsers().contains(currectUser)){
-            return ResponseEntity.status(HttpStatus.OK).body(ALREADY_LIKED.getMessage());
+        int inserted;
+        try {
+            inserted = postRepository.insertLike(currectUserId, post_id);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent like of the same post by the same user got in first
+            if (Constraints.isUniqueViolation(e)) {
+                throw new AppException(CONCURRENT_UPDATE.getMessage(), HttpStatus.CONFLICT);
+            }
+            throw e;
         }
 
-        post.getLikedUsers().add(currectUser);
-        currectUser.getLikedPosts().add(post);
+        if (inserted == 0){
+            return ResponseEntity.status(HttpStatus.OK).body(ALREADY_LIKED.getMessage());
+        }
 
-        postRepository.save(post);
+        postRepository.adjustLikeCount(post_id, 1);
         return ResponseEntity.status(HttpStatus.CREATED).body(LIKED_SUCCESSFULLY.getMessage());
     }
 
+    @Transactional
     public ResponseEntity<String> unlikePost(Long post_id){
-        User currectUser = fetchCurrectUser();
-        Post post = userUtils.fetchPost(post_id);
-        if (!post.getLikedUsers().contains(currectUser)){
+        if (postRepository.deleteLike(currentUserContext.getId(), post_id) == 0){
+            if (!postRepository.existsById(post_id)) {
+                throw new PostNotFoundException(POST_NOT_FOUND.getMessage());
+            }
             return ResponseEntity.status(HttpStatus.OK).body(NOT_LIKED.getMessage());
         }
 
-        post.getLikedUsers().remove(currectUser);
-        currectUser.getLikedPosts().remove(post);
-
-        postRepository.save(post);
+        postRepository.adjustLikeCount(post_id, -1);
         return ResponseEntity.status(HttpStatus.OK).body(UNLIKED_SUCCESSFULLY.getMessage());
     }
 
@@ -1,48 +1,143 @@
 package com.projects.My_Instagram.services;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.projects.My_Instagram.DTOs.request.UserRequest;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
+import com.projects.My_Instagram.DTOs.response.UserSearchResponse;
+import com.projects.My_Instagram.DTOs.response.UsernameAvailabilityResponse;
+import com.projects.My_Instagram.exceptions.AppException;
 import com.projects.My_Instagram.exceptions.PasswordNullException;
 import com.projects.My_Instagram.exceptions.UserNameExistsException;
 import com.projects.My_Instagram.exceptions.UserNameNullException;
 import com.projects.My_Instagram.exceptions.UserNotFoundException;
+import com.projects.My_Instagram.helper.AfterCommit;
+import com.projects.My_Instagram.helper.CursorCodec;
 import com.projects.My_Instagram.helper.Helper;
+import com.projects.My_Instagram.helper.UsernameFilter;
 import com.projects.My_Instagram.models.Role;
 import com.projects.My_Instagram.repositories.UserRepository;
 import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.search.UserSearchIndex;
+import com.projects.My_Instagram.security.PrincipalCache;
+import jakarta.transaction.Transactional;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.projects.My_Instagram.constants.exception.ExceptionMessages.*;
 
 @Service
 public class UserService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final String USERNAME_CONSTRAINT = "uk_users_username";
+    private static final String EXPORT_QUERY = """
+            select id, username, full_name, profile_pic_url, private_account, follower_count, following_count, post_count
+            from users where deleted = false order by id
+            """;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final UsernameFilter usernameFilter;
+    private final UserSearchIndex userSearchIndex;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, PrincipalCache principalCache,
+                       JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                       UsernameFilter usernameFilter, UserSearchIndex userSearchIndex) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.usernameFilter = usernameFilter;
+        this.userSearchIndex = userSearchIndex;
     }
 
     public UserResponse createUser(UserRequest signupRequest) {
         User user = new User();
         setUserName(user, signupRequest.getUsername());
+        // Turns away most taken names before paying for a password hash
+        if (usernameFilter.mightBeTaken(user.getUsername()) && userRepository.existsByUsername(user.getUsername())) {
+            throw new UserNameExistsException(USER_NAME_EXISTS.getMessage());
+        }
         setPassword(user,signupRequest.getPassword());
         user.setFullName(signupRequest.getFullName());
         user.setProfilePicUrl(signupRequest.getProfilePicUrl());
         user.setRole(Role.USER);
         user.setPrivateAccount(signupRequest.getPrivateAccount());
-        User createdUser = userRepository.save(user);
+        User createdUser = saveWithUniqueUsername(user);
+        usernameFilter.add(createdUser.getUsername());
+        userSearchIndex.put(createdUser);
 
         return Helper.formUserResponse(createdUser);
     }
 
+    public List<UserSearchResponse> searchUsers(String query, int limit) {
+        if (!userSearchIndex.isReady()) {
+            throw new AppException(SEARCH_INDEX_LOADING.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        List<UserSearchResponse> users = new ArrayList<>();
+        for (UserSearchIndex.Entry entry : userSearchIndex.search(query, limit)) {
+            users.add(new UserSearchResponse(entry.id(), entry.username(), entry.fullName(), entry.profilePicUrl(), entry.followerCount()));
+        }
+        return users;
+    }
+
+    /**
+     * Most free names are confirmed by the in-memory filter alone; only names
+     * the filter may have seen are checked against the table.
+     */
+    public UsernameAvailabilityResponse isUsernameAvailable(String username) {
+        if (username == null || username.isBlank()) {
+            throw new UserNameNullException(USER_NAME_NULL.getMessage());
+        }
+
+        boolean available = !usernameFilter.mightBeTaken(username) || !userRepository.existsByUsername(username);
+        return new UsernameAvailabilityResponse(username, available);
+    }
+
+    // The unique constraint decides concurrent claims on a name that passed the existence check
+    private User saveWithUniqueUsername(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(USERNAME_CONSTRAINT)) {
+                throw new UserNameExistsException(USER_NAME_EXISTS.getMessage());
+            }
+            throw e;
+        }
+    }
+
     private void setPassword(User user, String password) {
         if(!StringUtils.hasText(password)){
             throw new PasswordNullException(PASS_WORD_NUll.getMessage());
@@ -54,10 +149,6 @@ public class UserService {
 
     private void setUserName(User user, String username) {
         if (username != null) {
-            boolean exists = userRepository.existsByUsername(username);
-            if (exists) {
-                throw new UserNameExistsException(USER_NAME_EXISTS.getMessage());
-            }
             user.setUsername(username);
             return;
         }
@@ -75,30 +166,115 @@ public class UserService {
         return userRepository.findById(id).orElseThrow(() -> new UserNotFoundException(USER_NOT_FOUND.getMessage()));
     }
 
-    public List<UserResponse> getAllUsers() {
+    /**
+     * One page of the user directory in id order; the cursor is the last id seen.
+     */
+    public PageResponse<UserResponse> getAllUsers(String cursor, int limit) {
+        int pageSize = CursorCodec.clampLimit(limit, MAX_PAGE_SIZE);
+        Long afterId = cursor == null ? 0L : CursorCodec.decodeId(cursor);
+
+        List<User> users = userRepository.findPageAfter(afterId, PageRequest.of(0, pageSize + 1));
+
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = CursorCodec.encode(users.get(pageSize - 1).getId());
+        }
+
         List<UserResponse> allUsers = new ArrayList<>();
-        for (User user : userRepository.findAll()) {
+        for (User user : users) {
             allUsers.add(Helper.formUserResponse(user));
         }
 
-        return allUsers;
+        return new PageResponse<>(allUsers, nextCursor);
+    }
+
+    /**
+     * Streams the whole directory as NDJSON from one forward-only JDBC cursor.
+     * Rows go straight from the result set to the response, so memory use
+     * does not depend on the table size. The transaction keeps the cursor
+     * open; PostgreSQL only honours the fetch size outside autocommit.
+     */
+    public StreamingResponseBody exportAllUsers() {
+        return out -> {
+            SequenceWriter writer = objectMapper.writerFor(UserResponse.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .withRootValueSeparator("\n")
+                    .writeValues(out);
+            AtomicBoolean wroteRow = new AtomicBoolean();
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                    var statement = connection.prepareStatement(EXPORT_QUERY);
+                    statement.setFetchSize(EXPORT_FETCH_SIZE);
+                    statement.setReadOnly(true);
+                    return statement;
+                }, (RowCallbackHandler) row -> {
+                    write(writer, row);
+                    wroteRow.set(true);
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            writer.close();
+            // The separator only goes between rows, so end the last one; an empty export stays empty
+            if (wroteRow.get()) {
+                out.write('\n');
+            }
+            out.flush();
+        };
+    }
+
+    private static void write(SequenceWriter writer, ResultSet row) throws SQLException {
+        UserResponse user = new UserResponse();
+        user.setId(row.getLong("id"));
+        user.setUsername(row.getString("username"));
+        user.setFullName(row.getString("full_name"));
+        user.setProfilePicUrl(row.getString("profile_pic_url"));
+        user.setPrivateAccount(row.getObject("private_account", Boolean.class));
+        user.setFollowerCount(row.getLong("follower_count"));
+        user.setFollowingCount(row.getLong("following_count"));
+        user.setPostCount(row.getLong("post_count"));
+
+        try {
+            writer.write(user);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public UserResponse updateUser(Long id, UserRequest updatedUser) {
         User existingUser = getUser(id);
+        String previousUsername = existingUser.getUsername();
 
         setUserName(existingUser, updatedUser.getUsername());
         existingUser.setFullName(updatedUser.getFullName());
         existingUser.setProfilePicUrl(updatedUser.getProfilePicUrl());
 
-        User user = userRepository.save(existingUser);
+        User user = saveWithUniqueUsername(existingUser);
+        if (!user.getUsername().equals(previousUsername)) {
+            usernameFilter.add(user.getUsername());
+            usernameFilter.markRemoved();
+        }
+        userSearchIndex.put(user);
+        principalCache.invalidate(id);
         return Helper.formUserResponse(user);
     }
 
+    /**
+     * Marks the user deleted and hides them right away; DeletedUserCleanupJob
+     * removes their rows later.
+     */
+    @Transactional
     public void deleteUser(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException(USER_NOT_FOUND.getMessage()));
-        userRepository.delete(user);
+        if (userRepository.markDeleted(id) == 0) {
+            throw new UserNotFoundException(USER_NOT_FOUND.getMessage());
+        }
+        AfterCommit.run(() -> {
+            userSearchIndex.remove(id);
+            principalCache.invalidate(id);
+        });
     }
 
     @SuppressWarnings("OptionalGetWithoutIsPresent")
@@ -0,0 +1,40 @@
+package com.projects.My_Instagram.services;
+
+import com.projects.My_Instagram.graph.FollowGraph;
+import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.repositories.UserRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers "can this viewer see content owned by that user". Public accounts
+ * are visible to everyone and owners always see their own content. For
+ * private accounts the follower bitmap in {@link FollowGraph} is consulted;
+ * FollowService keeps it current on every follow, unfollow and accepted
+ * request. Until the graph has loaded, the single user_following row is
+ * probed instead.
+ */
+@Service
+public class VisibilityService {
+    private final FollowGraph followGraph;
+    private final UserRepository userRepository;
+
+    public VisibilityService(FollowGraph followGraph, UserRepository userRepository) {
+        this.followGraph = followGraph;
+        this.userRepository = userRepository;
+    }
+
+    public boolean canView(Long viewerId, User owner) {
+        return canView(viewerId, owner.getId(), owner.getPrivateAccount());
+    }
+
+    public boolean canView(Long viewerId, Long ownerId, Boolean ownerPrivate) {
+        if (!Boolean.TRUE.equals(ownerPrivate) || ownerId.equals(viewerId)) {
+            return true;
+        }
+
+        if (followGraph.isReady()) {
+            return followGraph.isFollowing(viewerId, ownerId);
+        }
+        return userRepository.existsFollow(viewerId, ownerId);
+    }
+}
@@ -0,0 +1,88 @@
+package com.projects.My_Instagram.timeline;
+
+import java.util.Arrays;
+
+/**
+ * Bounded list of post ids, newest first. Once the capacity is reached the
+ * oldest entries are dropped, so a timeline never grows past its cap.
+ */
+public class Timeline {
+    private final long[] postIds;
+    private int size;
+
+    public Timeline(int capacity) {
+        this.postIds = new long[capacity];
+    }
+
+    public Timeline(int capacity, long[] newestFirst) {
+        this(capacity);
+        size = Math.min(capacity, newestFirst.length);
+        System.arraycopy(newestFirst, 0, postIds, 0, size);
+    }
+
+    public synchronized void push(long postId) {
+        int index = indexOf(postId);
+        if (index >= 0) {
+            return;
+        }
+
+        int insertAt = -index - 1;
+        if (insertAt >= postIds.length) {
+            return;
+        }
+
+        int toShift = Math.min(size, postIds.length - 1) - insertAt;
+        if (toShift > 0) {
+            System.arraycopy(postIds, insertAt, postIds, insertAt + 1, toShift);
+        }
+        postIds[insertAt] = postId;
+        size = Math.min(size + 1, postIds.length);
+    }
+
+    public synchronized void remove(long postId) {
+        int index = indexOf(postId);
+        if (index < 0) {
+            return;
+        }
+
+        System.arraycopy(postIds, index + 1, postIds, index, size - index - 1);
+        size--;
+    }
+
+    /**
+     * Returns up to {@code limit} post ids strictly older than {@code beforeId},
+     * or from the head of the timeline when {@code beforeId} is null.
+     */
+    public synchronized long[] page(Long beforeId, int limit) {
+        int from = 0;
+        if (beforeId != null) {
+            int index = indexOf(beforeId);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+
+        int to = Math.min(size, from + limit);
+        return from >= to ? new long[0] : Arrays.copyOfRange(postIds, from, to);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Binary search over the descending array; same contract as Arrays.binarySearch.
+    private int indexOf(long postId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = postIds[mid];
+            if (value > postId) {
+                low = mid + 1;
+            } else if (value < postId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.projects.My_Instagram.timeline;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * In-memory home timelines keyed by user id. Only users who have read their
+ * feed recently keep a materialized timeline; everyone else is rebuilt from
+ * the database on their next read, so fan-out only touches hot timelines.
+ */
+@Component
+public class TimelineStore {
+    private final Cache<Long, Timeline> timelines;
+    private final int capacity;
+
+    public TimelineStore(@Value("${app.feed.timeline-size:500}") int capacity,
+                         @Value("${app.feed.max-cached-timelines:100000}") long maxTimelines,
+                         @Value("${app.feed.idle-timeline-expiry:PT6H}") Duration idleExpiry) {
+        this.capacity = capacity;
+        this.timelines = Caffeine.newBuilder()
+                .maximumSize(maxTimelines)
+                .expireAfterAccess(idleExpiry)
+                .build();
+    }
+
+    public Timeline getOrLoad(Long userId, Function<Long, long[]> loader) {
+        return timelines.get(userId, id -> new Timeline(capacity, loader.apply(id)));
+    }
+
+    /**
+     * Pushes a post into a user's timeline if that timeline is materialized.
+     */
+    public void pushIfPresent(Long userId, long postId) {
+        Timeline timeline = timelines.getIfPresent(userId);
+        if (timeline != null) {
+            timeline.push(postId);
+        }
+    }
+
+    public void invalidate(Long userId) {
+        timelines.invalidate(userId);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
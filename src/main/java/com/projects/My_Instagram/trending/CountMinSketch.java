@@ -0,0 +1,65 @@
+package com.projects.My_Instagram.trending;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch over strings. Estimates never undercount; with width w
+ * and depth d they overcount by more than 2N/w with probability below
+ * 2^-d, where N is the total added. Sketches built with the same shape
+ * share hash functions, so they can be added to and subtracted from each
+ * other; TrendingTags keeps its window totals that way.
+ */
+final class CountMinSketch {
+    private final int depth;
+    private final int width;
+    private final int[] counts;
+
+    CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.counts = new int[depth * width];
+    }
+
+    void add(String key, int count) {
+        int hash = key.hashCode();
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + index(hash, row)] += count;
+        }
+    }
+
+    long estimate(String key) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    void addAll(CountMinSketch other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    void subtractAll(CountMinSketch other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] -= other.counts[i];
+        }
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    private int index(int hash, int row) {
+        // murmur3 finalizer over the key hash and a per-row seed
+        int h = hash ^ (row * 0x9E3779B9);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, width);
+    }
+}
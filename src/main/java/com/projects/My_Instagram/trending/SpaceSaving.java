@@ -0,0 +1,63 @@
+package com.projects.My_Instagram.trending;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Space-Saving heavy hitters: tracks at most {@code capacity} keys, and any
+ * key seen more than N/capacity times out of N is guaranteed to be among
+ * them. When full, a new key takes over the least counted slot. Keys are
+ * grouped by count so that slot is found without a scan.
+ */
+final class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Long> counts = new HashMap<>();
+    private final TreeMap<Long, Set<String>> keysByCount = new TreeMap<>();
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void offer(String key) {
+        Long count = counts.get(key);
+        if (count != null) {
+            move(key, count, count + 1);
+            return;
+        }
+
+        if (counts.size() < capacity) {
+            counts.put(key, 1L);
+            keysByCount.computeIfAbsent(1L, c -> new LinkedHashSet<>()).add(key);
+            return;
+        }
+
+        Map.Entry<Long, Set<String>> least = keysByCount.firstEntry();
+        String evicted = least.getValue().iterator().next();
+        long minimum = least.getKey();
+        removeFromGroup(evicted, minimum);
+        counts.remove(evicted);
+        counts.put(key, minimum + 1);
+        keysByCount.computeIfAbsent(minimum + 1, c -> new LinkedHashSet<>()).add(key);
+    }
+
+    Set<String> keys() {
+        return counts.keySet();
+    }
+
+    private void move(String key, long from, long to) {
+        removeFromGroup(key, from);
+        counts.put(key, to);
+        keysByCount.computeIfAbsent(to, c -> new LinkedHashSet<>()).add(key);
+    }
+
+    private void removeFromGroup(String key, long count) {
+        Set<String> group = keysByCount.get(count);
+        group.remove(key);
+        if (group.isEmpty()) {
+            keysByCount.remove(count);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.projects.My_Instagram.trending;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streaming "trending now" hashtags. Every tag used in a new post is added
+ * to a count-min sketch for the current minute and one for the current
+ * hour. Running totals for the last 60 minutes and the last 24 hours are
+ * kept by adding each use to them and subtracting buckets as they expire.
+ * Space-Saving counters for the current and previous hour supply the
+ * candidate tags.
+ *
+ * <p>A tag trends when its last-hour count is high against its average
+ * hour over the last day. The ranked list is rebuilt on a short schedule
+ * and readers only ever see the last finished snapshot. Counts live in
+ * memory only and start from zero after a restart.
+ */
+@Component
+public class TrendingTags {
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int HOURS_PER_DAY = 24;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 4096;
+    // Added to the baseline so one-off tags on a quiet day don't dominate
+    private static final double BASELINE_PRIOR = 2.0;
+
+    public record Trend(String tag, long lastHourCount, double score) {
+    }
+
+    private final int topK;
+    private final long minCount;
+    private final int candidates;
+
+    private final CountMinSketch[] minuteSketches = new CountMinSketch[MINUTES_PER_HOUR];
+    private final long[] minuteIds = new long[MINUTES_PER_HOUR];
+    private final CountMinSketch[] hourSketches = new CountMinSketch[HOURS_PER_DAY];
+    private final long[] hourIds = new long[HOURS_PER_DAY];
+    private final CountMinSketch lastHour = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+    private final CountMinSketch lastDay = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+    private SpaceSaving currentHourHitters;
+    private SpaceSaving previousHourHitters;
+    private long currentMinute = -1;
+
+    private volatile List<Trend> snapshot = List.of();
+
+    public TrendingTags(@Value("${app.trending.top-k:20}") int topK,
+                        @Value("${app.trending.min-count:5}") long minCount,
+                        @Value("${app.trending.candidates:512}") int candidates) {
+        this.topK = topK;
+        this.minCount = minCount;
+        this.candidates = candidates;
+        for (int i = 0; i < MINUTES_PER_HOUR; i++) {
+            minuteSketches[i] = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+            minuteIds[i] = -1;
+        }
+        for (int i = 0; i < HOURS_PER_DAY; i++) {
+            hourSketches[i] = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+            hourIds[i] = -1;
+        }
+        this.currentHourHitters = new SpaceSaving(candidates);
+        this.previousHourHitters = new SpaceSaving(candidates);
+    }
+
+    public void record(Collection<String> tags) {
+        record(tags, System.currentTimeMillis());
+    }
+
+    synchronized void record(Collection<String> tags, long nowMillis) {
+        if (tags.isEmpty()) {
+            return;
+        }
+
+        advanceTo(nowMillis / MINUTE_MILLIS);
+        CountMinSketch minute = minuteSketches[(int) (currentMinute % MINUTES_PER_HOUR)];
+        CountMinSketch hour = hourSketches[(int) (currentMinute / MINUTES_PER_HOUR % HOURS_PER_DAY)];
+        for (String tag : tags) {
+            minute.add(tag, 1);
+            hour.add(tag, 1);
+            lastHour.add(tag, 1);
+            lastDay.add(tag, 1);
+            currentHourHitters.offer(tag);
+        }
+    }
+
+    /**
+     * The last snapshot, best first.
+     */
+    public List<Trend> getTrending() {
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.refresh-interval:PT5S}")
+    public void refresh() {
+        refresh(System.currentTimeMillis());
+    }
+
+    void refresh(long nowMillis) {
+        List<Trend> trends = new ArrayList<>();
+        synchronized (this) {
+            advanceTo(nowMillis / MINUTE_MILLIS);
+            Set<String> tags = new HashSet<>(currentHourHitters.keys());
+            tags.addAll(previousHourHitters.keys());
+            for (String tag : tags) {
+                long hourCount = lastHour.estimate(tag);
+                if (hourCount < minCount) {
+                    continue;
+                }
+                double hourlyBaseline = (double) lastDay.estimate(tag) / HOURS_PER_DAY;
+                trends.add(new Trend(tag, hourCount, hourCount / (hourlyBaseline + BASELINE_PRIOR)));
+            }
+        }
+
+        trends.sort(Comparator.comparingDouble(Trend::score).reversed()
+                .thenComparing(Comparator.comparingLong(Trend::lastHourCount).reversed())
+                .thenComparing(Trend::tag));
+        snapshot = List.copyOf(trends.subList(0, Math.min(topK, trends.size())));
+    }
+
+    // Expires every minute and hour bucket that fell out of its window since the last call
+    private void advanceTo(long minute) {
+        if (minute <= currentMinute) {
+            return;
+        }
+
+        long firstNewMinute = Math.max(currentMinute + 1, minute - MINUTES_PER_HOUR + 1);
+        for (long m = firstNewMinute; m <= minute; m++) {
+            int slot = (int) (m % MINUTES_PER_HOUR);
+            if (minuteIds[slot] != -1) {
+                lastHour.subtractAll(minuteSketches[slot]);
+                minuteSketches[slot].clear();
+            }
+            minuteIds[slot] = m;
+        }
+
+        long currentHour = currentMinute < 0 ? -1 : currentMinute / MINUTES_PER_HOUR;
+        long hour = minute / MINUTES_PER_HOUR;
+        if (hour > currentHour) {
+            long firstNewHour = Math.max(currentHour + 1, hour - HOURS_PER_DAY + 1);
+            for (long h = firstNewHour; h <= hour; h++) {
+                int slot = (int) (h % HOURS_PER_DAY);
+                if (hourIds[slot] != -1) {
+                    lastDay.subtractAll(hourSketches[slot]);
+                    hourSketches[slot].clear();
+                }
+                hourIds[slot] = h;
+            }
+
+            previousHourHitters = hour == currentHour + 1 ? currentHourHitters : new SpaceSaving(candidates);
+            currentHourHitters = new SpaceSaving(candidates);
+        }
+        currentMinute = minute;
+    }
+}
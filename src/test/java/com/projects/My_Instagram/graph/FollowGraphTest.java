@@ -0,0 +1,89 @@
+package com.projects.My_Instagram.graph;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FollowGraphTest {
+
+    private FollowGraph followGraph;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        followGraph = new FollowGraph(mock(JdbcTemplate.class), transactionTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void load_MarksGraphReady_AndKeepsEarlierEdges() {
+        assertFalse(followGraph.isReady());
+
+        followGraph.load();
+        followGraph.addEdge(1L, 2L);
+
+        assertTrue(followGraph.isReady());
+        assertTrue(followGraph.isFollowing(1L, 2L));
+        assertFalse(followGraph.isFollowing(2L, 1L));
+        assertEquals(1, followGraph.getEdgeCount());
+    }
+
+    @Test
+    void addAndRemoveEdge_UpdateBothDirections() {
+        followGraph.load();
+        followGraph.addEdge(1L, 2L);
+        followGraph.addEdge(1L, 2L);
+        followGraph.addEdge(3L, 2L);
+
+        assertEquals(2, followGraph.followerCount(2L));
+        assertEquals(1, followGraph.followingCount(1L));
+        assertEquals(2, followGraph.getEdgeCount());
+
+        followGraph.removeEdge(1L, 2L);
+
+        assertFalse(followGraph.isFollowing(1L, 2L));
+        assertEquals(1, followGraph.followerCount(2L));
+        assertEquals(1, followGraph.getEdgeCount());
+    }
+
+    @Test
+    void followedByFollowing_IntersectsViewerFollowingWithTargetFollowers() {
+        followGraph.load();
+        followGraph.addEdge(1L, 10L);
+        followGraph.addEdge(1L, 11L);
+        followGraph.addEdge(1L, 12L);
+        followGraph.addEdge(10L, 99L);
+        followGraph.addEdge(12L, 99L);
+        followGraph.addEdge(13L, 99L);
+
+        RoaringBitmap overlap = followGraph.followedByFollowing(1L, 99L);
+
+        assertEquals(RoaringBitmap.bitmapOf(10, 12), overlap);
+        assertTrue(followGraph.followedByFollowing(1L, 100L).isEmpty());
+    }
+
+    @Test
+    void following_ReturnsDetachedCopy() {
+        followGraph.load();
+        followGraph.addEdge(1L, 2L);
+
+        RoaringBitmap copy = followGraph.following(1L);
+        copy.add(3);
+
+        assertFalse(followGraph.isFollowing(1L, 3L));
+    }
+}
@@ -0,0 +1,119 @@
+package com.projects.My_Instagram.graph;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SuggestionIndexTest {
+
+    private FollowGraph followGraph;
+    private SuggestionIndex suggestionIndex;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        followGraph = new FollowGraph(mock(JdbcTemplate.class), transactionTemplate, new SimpleMeterRegistry());
+        followGraph.load();
+        suggestionIndex = new SuggestionIndex(followGraph, 2, 100, Duration.ofHours(1), 2);
+
+        // 1 follows 10 and 11; both follow 20, only 10 follows 21; 11 also follows 1 back
+        followGraph.addEdge(1L, 10L);
+        followGraph.addEdge(1L, 11L);
+        followGraph.addEdge(10L, 20L);
+        followGraph.addEdge(11L, 20L);
+        followGraph.addEdge(10L, 21L);
+        followGraph.addEdge(11L, 1L);
+        followGraph.addEdge(10L, 11L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        suggestionIndex.shutdown();
+    }
+
+    @Test
+    void get_QueuesFirstRequest_AndAnswersOnceComputed() {
+        assertNull(suggestionIndex.get(1L));
+        assertTrue(suggestionIndex.awaitIdle(Duration.ofSeconds(5)));
+
+        assertArrayEquals(new int[]{20, 2, 21, 1}, suggestionIndex.get(1L));
+    }
+
+    @Test
+    void get_RanksByFolloweesFollowing_AndSkipsSelfAndFollowed() {
+        int[] pairs = computed(1L);
+
+        assertArrayEquals(new int[]{20, 2, 21, 1}, pairs);
+    }
+
+    @Test
+    void get_KeepsOnlyTopK() {
+        followGraph.addEdge(10L, 22L);
+        followGraph.addEdge(11L, 22L);
+        followGraph.addEdge(10L, 23L);
+
+        int[] pairs = computed(1L);
+
+        assertEquals(4, pairs.length);
+        assertEquals(20, pairs[0]);
+        assertEquals(22, pairs[2]);
+    }
+
+    @Test
+    void onFollow_DropsAccountAndRefreshPicksUpNewFollowee() {
+        computed(1L);
+
+        followGraph.addEdge(1L, 20L);
+        suggestionIndex.onFollow(1L, 20L);
+        assertArrayEquals(new int[]{21, 1}, suggestionIndex.get(1L));
+
+        followGraph.addEdge(20L, 30L);
+        suggestionIndex.refreshDirty();
+
+        assertArrayEquals(new int[]{21, 1, 30, 1}, suggestionIndex.get(1L));
+    }
+
+    @Test
+    void recompute_RefreshesOnlyUsersAlreadyInIndex() {
+        computed(1L);
+        followGraph.addEdge(11L, 21L);
+
+        suggestionIndex.recompute(List.of(1L, 2L));
+
+        assertArrayEquals(new int[]{20, 2, 21, 2}, suggestionIndex.get(1L));
+    }
+
+    @Test
+    void activeWindowExpiry_OnlyReadsExtendTheWindow() {
+        SuggestionIndex.ActiveWindowExpiry expiry = new SuggestionIndex.ActiveWindowExpiry(Duration.ofHours(1));
+        long window = Duration.ofHours(1).toNanos();
+        long remaining = Duration.ofMinutes(5).toNanos();
+
+        assertEquals(window, expiry.expireAfterCreate(1L, new int[0], 0));
+        assertEquals(remaining, expiry.expireAfterUpdate(1L, new int[0], 0, remaining));
+        assertEquals(window, expiry.expireAfterRead(1L, new int[0], 0, remaining));
+    }
+
+    private int[] computed(long userId) {
+        suggestionIndex.get(userId);
+        assertTrue(suggestionIndex.awaitIdle(Duration.ofSeconds(5)));
+        return suggestionIndex.get(userId);
+    }
+}
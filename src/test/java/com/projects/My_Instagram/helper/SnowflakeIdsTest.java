@@ -0,0 +1,90 @@
+package com.projects.My_Instagram.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdsTest {
+
+    private static final long NOW = SnowflakeIds.EPOCH_MILLIS + 86_400_000L;
+
+    @Test
+    void next_EncodesTimestampNodeAndSequence() {
+        SnowflakeIds ids = new SnowflakeIds(5, () -> NOW);
+
+        long first = ids.next();
+        long second = ids.next();
+
+        assertEquals(NOW, SnowflakeIds.timestampOf(first));
+        assertEquals(5, first >>> SnowflakeIds.SEQUENCE_BITS & SnowflakeIds.MAX_NODE_ID);
+        assertEquals(0, first & ((1L << SnowflakeIds.SEQUENCE_BITS) - 1));
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    void next_KeepsIncreasing_WhenSequenceRunsOutOrClockStepsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIds ids = new SnowflakeIds(1, clock::get);
+
+        long previous = ids.next();
+        for (int i = 0; i < 3 * (1 << SnowflakeIds.SEQUENCE_BITS); i++) {
+            long id = ids.next();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(NOW + 3, SnowflakeIds.timestampOf(previous));
+
+        clock.set(NOW - 1000);
+        assertTrue(ids.next() > previous);
+    }
+
+    @Test
+    void next_SortsByCreationTime() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIds nodeOne = new SnowflakeIds(1, clock::get);
+        SnowflakeIds nodeTwo = new SnowflakeIds(2, clock::get);
+
+        long earlier = nodeTwo.next();
+        clock.addAndGet(1);
+        long later = nodeOne.next();
+
+        assertTrue(later > earlier);
+        assertNotEquals(nodeOne.next(), nodeTwo.next());
+    }
+
+    @Test
+    void next_IsUniqueAcrossThreads() throws InterruptedException {
+        SnowflakeIds ids = new SnowflakeIds(3);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                Set<Long> local = new HashSet<>();
+                for (int i = 0; i < 20_000; i++) {
+                    local.add(ids.next());
+                }
+                seen.addAll(local);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8 * 20_000, seen.size());
+    }
+
+    @Test
+    void constructor_RejectsNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIds(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIds(SnowflakeIds.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,65 @@
+package com.projects.My_Instagram.helper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UsernameFilterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UsernameFilter usernameFilter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("select count(*) from users", Long.class)).thenReturn(0L);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        usernameFilter = new UsernameFilter(jdbcTemplate, transactionTemplate, new SimpleMeterRegistry(), 8, 0.01);
+        usernameFilter.load();
+    }
+
+    @Test
+    void rebuildIfStale_SkipsRebuild_WhileFilterHasRoom() {
+        usernameFilter.add("user_1");
+
+        usernameFilter.rebuildIfStale();
+
+        verify(jdbcTemplate, times(1)).queryForObject("select count(*) from users", Long.class);
+        assertTrue(usernameFilter.mightBeTaken("user_1"));
+    }
+
+    @Test
+    void rebuildIfStale_Rebuilds_WhenAddsFillTheFilter() {
+        for (int i = 0; i < 7; i++) {
+            usernameFilter.add("user_" + i);
+        }
+
+        usernameFilter.rebuildIfStale();
+        usernameFilter.rebuildIfStale();
+
+        verify(jdbcTemplate, times(2)).queryForObject("select count(*) from users", Long.class);
+    }
+
+    @Test
+    void rebuildIfStale_Rebuilds_WhenNamesWereRemoved() {
+        usernameFilter.markRemoved();
+
+        usernameFilter.rebuildIfStale();
+
+        verify(jdbcTemplate, times(2)).queryForObject("select count(*) from users", Long.class);
+    }
+}
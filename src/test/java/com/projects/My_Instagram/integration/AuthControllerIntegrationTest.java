@@ -7,16 +7,21 @@ import com.projects.My_Instagram.DTOs.response.AuthResponse;
 import com.projects.My_Instagram.DTOs.response.SignUpResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
 import com.projects.My_Instagram.models.Role;
+import com.projects.My_Instagram.jwt.JwtUtil;
 import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.security.CustomUserDetails;
+import com.projects.My_Instagram.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -42,6 +47,12 @@ class AuthControllerIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserService userService;
+
     private User testUser;
 
     @BeforeEach
@@ -148,5 +159,80 @@ class AuthControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(loginRequest)))
                 .andExpect(status().isNotFound());
     }
-}
 
+    @Test
+    void login_UpgradesPasswordHashedWithLowerCost() throws Exception {
+        testUser.setPassword(new BCryptPasswordEncoder(4).encode("password123"));
+        userRepository.save(testUser);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setUsername("testuser");
+        loginRequest.setPassword("password123");
+
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk());
+
+        String storedHash = userRepository.findByUsername("testuser").get().getPassword();
+        assertTrue(storedHash.startsWith("$2a$10$"));
+        assertTrue(passwordEncoder.matches("password123", storedHash));
+    }
+
+    @Test
+    void me_ResolvesPrincipalFromToken() throws Exception {
+        String token = jwtUtil.generateToken(new CustomUserDetails(testUser));
+
+        String response = mockMvc.perform(get("/auth/me")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        UserResponse userResponse = objectMapper.readValue(response, UserResponse.class);
+        assertEquals("testuser", userResponse.getUsername());
+    }
+
+    @Test
+    void me_Fails_AfterUserIsDeleted() throws Exception {
+        String token = jwtUtil.generateToken(new CustomUserDetails(testUser));
+
+        mockMvc.perform(get("/auth/me")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        userService.deleteUser(testUser.getId());
+        // The cached principal is only evicted once the deletion commits
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        mockMvc.perform(get("/auth/me")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+
+        TestTransaction.start();
+        userRepository.deleteAll();
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+    }
+
+    @Test
+    void usernameAvailable_ReflectsSignupWithoutAuthentication() throws Exception {
+        mockMvc.perform(get("/auth/username-available").param("username", "claimed_name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.available").value(true));
+
+        UserRequest signupRequest = new UserRequest();
+        signupRequest.setUsername("claimed_name");
+        signupRequest.setPassword("password123");
+        mockMvc.perform(post("/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(signupRequest)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/auth/username-available").param("username", "claimed_name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.available").value(false));
+    }
+}
@@ -3,6 +3,7 @@ package com.projects.My_Instagram.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projects.My_Instagram.DTOs.request.CreateCommentRequest;
 import com.projects.My_Instagram.DTOs.response.CommentResponse;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.models.Comment;
 import com.projects.My_Instagram.models.Post;
 import com.projects.My_Instagram.models.Role;
@@ -23,8 +24,6 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -128,11 +127,44 @@ class CommentControllerIntegrationTest {
                 .getResponse()
                 .getContentAsString();
 
-        List<CommentResponse> comments = objectMapper.readValue(response,
-                objectMapper.getTypeFactory().constructCollectionType(List.class, CommentResponse.class));
+        PageResponse<CommentResponse> comments = objectMapper.readValue(response,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, CommentResponse.class));
         assertNotNull(comments);
-        assertFalse(comments.isEmpty());
-        assertEquals("Test Comment", comments.get(0).comment());
+        assertFalse(comments.getItems().isEmpty());
+        assertEquals("Test Comment", comments.getItems().get(0).comment());
+    }
+
+    @Test
+    void getAllComments_PagesNewestFirst() throws Exception {
+        Comment newerComment = new Comment();
+        newerComment.setContent("Newer Comment");
+        newerComment.setCommentedUser(testComment.getCommentedUser());
+        newerComment.setCommentedPost(testPost);
+        commentRepository.save(newerComment);
+
+        String response = mockMvc.perform(get("/posts/" + testPost.getId() + "/comments?limit=1")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        PageResponse<CommentResponse> firstPage = objectMapper.readValue(response,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, CommentResponse.class));
+        assertEquals("Newer Comment", firstPage.getItems().get(0).comment());
+        assertNotNull(firstPage.getNextCursor());
+
+        response = mockMvc.perform(get("/posts/" + testPost.getId() + "/comments?limit=1&cursor=" + firstPage.getNextCursor())
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        PageResponse<CommentResponse> secondPage = objectMapper.readValue(response,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, CommentResponse.class));
+        assertEquals("Test Comment", secondPage.getItems().get(0).comment());
+        assertNull(secondPage.getNextCursor());
     }
 
     @Test
@@ -2,7 +2,9 @@ package com.projects.My_Instagram.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projects.My_Instagram.DTOs.response.FollowRequestResponse;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
+import com.projects.My_Instagram.jobs.CounterReconciliationJob;
 import com.projects.My_Instagram.models.FollowRequest;
 import com.projects.My_Instagram.models.FollowRequestStatus;
 import com.projects.My_Instagram.models.Role;
@@ -51,6 +53,9 @@ class FollowControllerIntegrationTest {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private CounterReconciliationJob counterReconciliationJob;
+
     private User currentUser;
     private User targetUser;
     private String authToken;
@@ -94,6 +99,8 @@ class FollowControllerIntegrationTest {
         User updatedTargetUser = userRepository.findByUsername("targetuser").orElseThrow();
         assertTrue(updatedCurrentUser.getFollowing().contains(updatedTargetUser));
         assertTrue(updatedTargetUser.getFollowers().contains(updatedCurrentUser));
+        assertEquals(1L, updatedCurrentUser.getFollowingCount());
+        assertEquals(1L, updatedTargetUser.getFollowerCount());
     }
 
     @Test
@@ -155,6 +162,19 @@ class FollowControllerIntegrationTest {
         assertFalse(updatedCurrentUser.getFollowing().contains(targetUser));
     }
 
+    @Test
+    void counterReconciliation_RepairsDriftedCounts() {
+        currentUser.getFollowing().add(targetUser);
+        userRepository.save(currentUser);
+
+        long repaired = counterReconciliationJob.reconcile();
+
+        assertEquals(2, repaired);
+        assertEquals(1L, userRepository.findByUsername("currentuser").orElseThrow().getFollowingCount());
+        assertEquals(1L, userRepository.findByUsername("targetuser").orElseThrow().getFollowerCount());
+        assertEquals(0, counterReconciliationJob.reconcile());
+    }
+
     @Test
     void unfollowUser_Fails_WhenNotFollowing() throws Exception {
         mockMvc.perform(delete("/users/targetuser/unfollow")
@@ -169,11 +189,9 @@ class FollowControllerIntegrationTest {
         follower.setPassword(passwordEncoder.encode("password123"));
         follower.setFullName("Follower User");
         follower.setRole(Role.USER);
+        follower.getFollowing().add(currentUser);
         follower = userRepository.save(follower);
 
-        currentUser.getFollowers().add(follower);
-        userRepository.save(currentUser);
-
         String response = mockMvc.perform(get("/users/followers")
                         .header("Authorization", "Bearer " + authToken))
                 .andExpect(status().isOk())
@@ -181,10 +199,11 @@ class FollowControllerIntegrationTest {
                 .getResponse()
                 .getContentAsString();
 
-        List<UserResponse> followers = objectMapper.readValue(response,
-                objectMapper.getTypeFactory().constructCollectionType(List.class, UserResponse.class));
+        PageResponse<UserResponse> followers = objectMapper.readValue(response,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, UserResponse.class));
         assertNotNull(followers);
-        assertFalse(followers.isEmpty());
+        assertEquals(1, followers.getItems().size());
+        assertEquals("follower", followers.getItems().get(0).getUsername());
     }
 
     @Test
@@ -199,10 +218,11 @@ class FollowControllerIntegrationTest {
                 .getResponse()
                 .getContentAsString();
 
-        List<UserResponse> following = objectMapper.readValue(response,
-                objectMapper.getTypeFactory().constructCollectionType(List.class, UserResponse.class));
+        PageResponse<UserResponse> following = objectMapper.readValue(response,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, UserResponse.class));
         assertNotNull(following);
-        assertFalse(following.isEmpty());
+        assertEquals(1, following.getItems().size());
+        assertNull(following.getNextCursor());
     }
 
     @Test
@@ -223,10 +243,12 @@ class FollowControllerIntegrationTest {
                 .getResponse()
                 .getContentAsString();
 
-        List<FollowRequestResponse> requests = objectMapper.readValue(response,
-                objectMapper.getTypeFactory().constructCollectionType(List.class, FollowRequestResponse.class));
+        PageResponse<FollowRequestResponse> requests = objectMapper.readValue(response,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, FollowRequestResponse.class));
         assertNotNull(requests);
-        assertFalse(requests.isEmpty());
+        assertEquals(1, requests.getItems().size());
+        assertEquals("currentuser", requests.getItems().get(0).getUsername());
+        assertNull(requests.getNextCursor());
     }
 
     @Test
@@ -283,5 +305,57 @@ class FollowControllerIntegrationTest {
                 .findByTargetUserAndStatus(targetUser, FollowRequestStatus.PENDING);
         assertTrue(requests.isEmpty());
     }
-}
 
+    @Test
+    void acceptAllFollowRequests_FollowsAndUpdatesCounts() throws Exception {
+        targetUser.setPrivateAccount(true);
+        userRepository.save(targetUser);
+
+        FollowRequest request = new FollowRequest();
+        request.setRequester(currentUser);
+        request.setTargetUser(targetUser);
+        request.setStatus(FollowRequestStatus.PENDING);
+        followRequestRepository.save(request);
+
+        String targetToken = jwtUtil.generateToken(new CustomUserDetails(targetUser));
+
+        String response = mockMvc.perform(patch("/users/follow-requests/accept")
+                        .header("Authorization", "Bearer " + targetToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals("Follow Requests Accepted: 1", response);
+        assertTrue(userRepository.existsFollow(currentUser.getId(), targetUser.getId()));
+        assertEquals(1L, userRepository.findByUsername("currentuser").orElseThrow().getFollowingCount());
+        assertEquals(1L, userRepository.findByUsername("targetuser").orElseThrow().getFollowerCount());
+        assertTrue(followRequestRepository.findByTargetUserAndStatus(targetUser, FollowRequestStatus.PENDING).isEmpty());
+    }
+
+    @Test
+    void acceptAllFollowRequests_SkipsDeletedRequesters() throws Exception {
+        targetUser.setPrivateAccount(true);
+        userRepository.save(targetUser);
+
+        FollowRequest request = new FollowRequest();
+        request.setRequester(currentUser);
+        request.setTargetUser(targetUser);
+        request.setStatus(FollowRequestStatus.PENDING);
+        followRequestRepository.save(request);
+        userRepository.markDeleted(currentUser.getId());
+
+        String targetToken = jwtUtil.generateToken(new CustomUserDetails(targetUser));
+
+        String response = mockMvc.perform(patch("/users/follow-requests/accept")
+                        .header("Authorization", "Bearer " + targetToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals("Follow Requests Accepted: 0", response);
+        assertFalse(userRepository.existsFollow(currentUser.getId(), targetUser.getId()));
+        assertEquals(0L, userRepository.findByUsername("targetuser").orElseThrow().getFollowerCount());
+    }
+}
@@ -2,6 +2,7 @@ package com.projects.My_Instagram.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projects.My_Instagram.DTOs.request.PostRequest;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.DTOs.response.PostResponse;
 import com.projects.My_Instagram.models.Post;
 import com.projects.My_Instagram.models.Role;
@@ -9,6 +10,7 @@ import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.repositories.PostRepository;
 import com.projects.My_Instagram.repositories.UserRepository;
 import com.projects.My_Instagram.security.CustomUserDetails;
+import com.projects.My_Instagram.jobs.CounterReconciliationJob;
 import com.projects.My_Instagram.jwt.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,8 +23,6 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -51,6 +51,9 @@ class PostControllerIntegrationTest {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private CounterReconciliationJob counterReconciliationJob;
+
     private User testUser;
     private String authToken;
     private Post testPost;
@@ -88,6 +91,7 @@ class PostControllerIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(postRequest)))
                 .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").isString())
                 .andReturn()
                 .getResponse()
                 .getContentAsString();
@@ -119,10 +123,10 @@ class PostControllerIntegrationTest {
                 .getResponse()
                 .getContentAsString();
 
-        List<PostResponse> posts = objectMapper.readValue(response,
-                objectMapper.getTypeFactory().constructCollectionType(List.class, PostResponse.class));
+        PageResponse<PostResponse> posts = objectMapper.readValue(response,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, PostResponse.class));
         assertNotNull(posts);
-        assertFalse(posts.isEmpty());
+        assertFalse(posts.getItems().isEmpty());
     }
 
     @Test
@@ -134,10 +138,43 @@ class PostControllerIntegrationTest {
                 .getResponse()
                 .getContentAsString();
 
-        List<PostResponse> posts = objectMapper.readValue(response,
-                objectMapper.getTypeFactory().constructCollectionType(List.class, PostResponse.class));
+        PageResponse<PostResponse> posts = objectMapper.readValue(response,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, PostResponse.class));
         assertNotNull(posts);
-        assertFalse(posts.isEmpty());
+        assertFalse(posts.getItems().isEmpty());
+    }
+
+    @Test
+    void getAllPostsOfUser_PagesWithCursor() throws Exception {
+        Post secondPost = new Post();
+        secondPost.setCaption("Second Caption");
+        secondPost.setImageUrl("http://example.com/second.jpg");
+        secondPost.setUser(testUser);
+        postRepository.save(secondPost);
+
+        String firstResponse = mockMvc.perform(get("/posts/user/testuser?limit=1")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        PageResponse<PostResponse> firstPage = objectMapper.readValue(firstResponse,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, PostResponse.class));
+        assertEquals(1, firstPage.getItems().size());
+        assertNotNull(firstPage.getNextCursor());
+
+        String secondResponse = mockMvc.perform(get("/posts/user/testuser?limit=1&cursor=" + firstPage.getNextCursor())
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        PageResponse<PostResponse> secondPage = objectMapper.readValue(secondResponse,
+                objectMapper.getTypeFactory().constructParametricType(PageResponse.class, PostResponse.class));
+        assertEquals(1, secondPage.getItems().size());
+        assertNotEquals(firstPage.getItems().get(0).getId(), secondPage.getItems().get(0).getId());
     }
 
     @Test
@@ -197,12 +234,38 @@ class PostControllerIntegrationTest {
 
     @Test
     void deleteAllPostsOfUser_Success() throws Exception {
-        mockMvc.perform(delete("/posts")
+        // The purge itself runs on a background thread in its own transactions, so only the job is checked here
+        String response = mockMvc.perform(delete("/posts")
                         .header("Authorization", "Bearer " + authToken))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").exists())
+                .andExpect(jsonPath("$.totalPosts").value(1))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
 
-        List<Post> userPosts = postRepository.findByUser(testUser);
-        assertTrue(userPosts.isEmpty());
+        String jobId = objectMapper.readTree(response).get("jobId").asText();
+
+        mockMvc.perform(get("/posts/purge-jobs/" + jobId)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jobId").value(jobId));
     }
-}
 
+    @Test
+    void getPurgeJob_ReturnsNotFound_ForUnknownJob() throws Exception {
+        mockMvc.perform(get("/posts/purge-jobs/unknown")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void counterReconciliation_BackfillsLikeCounts() {
+        // A like recorded before like_count existed
+        postRepository.insertLike(testUser.getId(), testPost.getId());
+
+        assertEquals(1, counterReconciliationJob.reconcilePosts());
+        assertEquals(1L, postRepository.findById(testPost.getId()).orElseThrow().getLikeCount());
+        assertEquals(0, counterReconciliationJob.reconcilePosts());
+    }
+}
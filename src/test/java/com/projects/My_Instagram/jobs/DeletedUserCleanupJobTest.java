@@ -0,0 +1,116 @@
+package com.projects.My_Instagram.jobs;
+
+import com.projects.My_Instagram.graph.FollowGraph;
+import com.projects.My_Instagram.graph.SuggestionIndex;
+import com.projects.My_Instagram.helper.UsernameFilter;
+import com.projects.My_Instagram.repositories.CommentRepository;
+import com.projects.My_Instagram.repositories.FollowRequestRepository;
+import com.projects.My_Instagram.repositories.PostCaptionRow;
+import com.projects.My_Instagram.repositories.PostRepository;
+import com.projects.My_Instagram.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DeletedUserCleanupJobTest {
+
+    private UserRepository userRepository;
+    private PostRepository postRepository;
+    private CommentRepository commentRepository;
+    private FollowRequestRepository followRequestRepository;
+    private PostPurgeJob postPurgeJob;
+    private FollowGraph followGraph;
+    private SuggestionIndex suggestionIndex;
+    private UsernameFilter usernameFilter;
+    private DeletedUserCleanupJob job;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        postRepository = mock(PostRepository.class);
+        commentRepository = mock(CommentRepository.class);
+        followRequestRepository = mock(FollowRequestRepository.class);
+        postPurgeJob = mock(PostPurgeJob.class);
+        followGraph = mock(FollowGraph.class);
+        suggestionIndex = mock(SuggestionIndex.class);
+        usernameFilter = mock(UsernameFilter.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+
+        job = new DeletedUserCleanupJob(userRepository, postRepository, commentRepository, followRequestRepository,
+                postPurgeJob, followGraph, suggestionIndex, usernameFilter, transactionTemplate, 2, Duration.ZERO);
+    }
+
+    @Test
+    void cleanUp_RemovesEverythingBeforeTheUserRow() throws InterruptedException {
+        when(userRepository.findDeletedIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(7L));
+        when(userRepository.findDeletedIdsAfter(eq(7L), any(Pageable.class))).thenReturn(List.of());
+        when(followRequestRepository.findIdsInvolving(eq(7L), any(Pageable.class))).thenReturn(List.of(40L));
+        when(userRepository.findFollowingIdsOf(eq(7L), any(Pageable.class))).thenReturn(List.of(2L, 3L), List.of(4L));
+        when(userRepository.findFollowerIdsOf(eq(7L), any(Pageable.class))).thenReturn(List.of(5L));
+        when(postRepository.findLikedPostIds(eq(7L), any(Pageable.class))).thenReturn(List.of(100L));
+        when(commentRepository.findIdsByUserId(eq(7L), any(Pageable.class))).thenReturn(List.of(200L));
+        when(postPurgeJob.purgeBatch(7L, Long.MAX_VALUE)).thenReturn(List.of(new PostCaptionRow(300L, "x")), List.of());
+        when(userRepository.deleteTombstone(7L)).thenReturn(1);
+
+        assertEquals(1, job.cleanUp());
+
+        var order = inOrder(followRequestRepository, userRepository, postRepository, commentRepository, postPurgeJob);
+        order.verify(followRequestRepository).deleteByIdIn(List.of(40L));
+        order.verify(userRepository).deleteFollowingOf(7L, List.of(2L, 3L));
+        order.verify(userRepository).decrementFollowerCounts(List.of(2L, 3L));
+        order.verify(userRepository).deleteFollowingOf(7L, List.of(4L));
+        order.verify(userRepository).decrementFollowerCounts(List.of(4L));
+        order.verify(userRepository).deleteFollowersOf(7L, List.of(5L));
+        order.verify(userRepository).decrementFollowingCounts(List.of(5L));
+        order.verify(postRepository).deleteLikesOfUser(7L, List.of(100L));
+        order.verify(postRepository).decrementLikeCounts(List.of(100L));
+        order.verify(commentRepository).deleteByIdIn(List.of(200L));
+        order.verify(postPurgeJob, times(2)).purgeBatch(7L, Long.MAX_VALUE);
+        order.verify(userRepository).deleteTombstone(7L);
+
+        verify(followGraph).removeEdge(7L, 2L);
+        verify(followGraph).removeEdge(7L, 4L);
+        verify(followGraph).removeEdge(5L, 7L);
+        verify(suggestionIndex).onUnfollow(5L);
+        verify(usernameFilter).markRemoved();
+    }
+
+    @Test
+    void cleanUp_KeepsTombstone_WhenAStepFails() throws InterruptedException {
+        when(userRepository.findDeletedIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(7L));
+        when(userRepository.findDeletedIdsAfter(eq(7L), any(Pageable.class))).thenReturn(List.of());
+        when(followRequestRepository.findIdsInvolving(eq(7L), any(Pageable.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertEquals(0, job.cleanUp());
+
+        verify(userRepository, never()).deleteTombstone(any());
+        verify(usernameFilter, never()).markRemoved();
+    }
+
+    @Test
+    void cleanUp_DoesNothing_WithoutTombstones() throws InterruptedException {
+        when(userRepository.findDeletedIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(0, job.cleanUp());
+
+        verifyNoInteractions(followRequestRepository, postRepository, commentRepository, postPurgeJob);
+    }
+}
@@ -0,0 +1,103 @@
+package com.projects.My_Instagram.jobs;
+
+import com.projects.My_Instagram.exceptions.AppException;
+import com.projects.My_Instagram.repositories.PostCaptionRow;
+import com.projects.My_Instagram.repositories.PostRepository;
+import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.search.PostSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PostPurgeJobTest {
+
+    private PostRepository postRepository;
+    private UserRepository userRepository;
+    private PostSearchIndex postSearchIndex;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        postRepository = mock(PostRepository.class);
+        userRepository = mock(UserRepository.class);
+        postSearchIndex = mock(PostSearchIndex.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private PostPurgeJob job(TaskExecutor executor) {
+        return new PostPurgeJob(postRepository, userRepository, postSearchIndex, transactionTemplate, executor,
+                2, Duration.ZERO, Duration.ofHours(1));
+    }
+
+    @Test
+    void start_DeletesPostsInBatchesChildrenFirst() {
+        List<PostCaptionRow> firstBatch = List.of(new PostCaptionRow(1L, "one"), new PostCaptionRow(2L, "two"));
+        List<PostCaptionRow> secondBatch = List.of(new PostCaptionRow(3L, "#three"));
+        when(postRepository.findMaxIdByUserId(7L)).thenReturn(3L);
+        when(postRepository.countByUserIdUpTo(7L, 3L)).thenReturn(3L);
+        when(postRepository.findCaptionsByUserIdUpTo(eq(7L), eq(3L), any(Pageable.class))).thenReturn(firstBatch, secondBatch);
+        when(postRepository.deletePosts(List.of(1L, 2L))).thenReturn(2);
+        when(postRepository.deletePosts(List.of(3L))).thenReturn(1);
+
+        PostPurgeJob postPurgeJob = job(Runnable::run);
+        PostPurgeJob.Progress progress = postPurgeJob.start(7L);
+
+        assertEquals(PostPurgeJob.Status.COMPLETED, progress.getStatus());
+        assertEquals(3, progress.getTotalPosts());
+        assertEquals(3, progress.getDeletedPosts());
+        assertSame(progress, postPurgeJob.get(progress.getId()));
+
+        var order = inOrder(postRepository, userRepository);
+        order.verify(postRepository).deleteLikesOfPosts(List.of(1L, 2L));
+        order.verify(postRepository).deleteCommentsOfPosts(List.of(1L, 2L));
+        order.verify(postRepository).deletePosts(List.of(1L, 2L));
+        order.verify(userRepository).adjustPostCount(7L, -2);
+        order.verify(postRepository).deletePosts(List.of(3L));
+        order.verify(userRepository).adjustPostCount(7L, -1);
+        verify(postSearchIndex).remove(3L, "#three");
+        verify(postRepository, times(2)).findCaptionsByUserIdUpTo(eq(7L), eq(3L), any(Pageable.class));
+    }
+
+    @Test
+    void start_ReturnsRunningJob_WhenUserAlreadyHasOne() {
+        List<Runnable> queued = new ArrayList<>();
+        PostPurgeJob postPurgeJob = job(queued::add);
+
+        PostPurgeJob.Progress first = postPurgeJob.start(7L);
+        PostPurgeJob.Progress second = postPurgeJob.start(7L);
+
+        assertSame(first, second);
+        assertEquals(PostPurgeJob.Status.QUEUED, first.getStatus());
+        assertEquals(1, queued.size());
+    }
+
+    @Test
+    void start_ThrowsTooManyRequests_WhenExecutorIsFull() {
+        PostPurgeJob postPurgeJob = job(task -> {
+            throw new TaskRejectedException("full");
+        });
+
+        AppException exception = assertThrows(AppException.class, () -> postPurgeJob.start(7L));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+    }
+}
@@ -0,0 +1,49 @@
+package com.projects.My_Instagram.jwt;
+
+import com.projects.My_Instagram.models.Role;
+import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.security.CustomUserDetails;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtUtil = new JwtUtil(meterRegistry, 100);
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("current_user");
+        user.setRole(Role.USER);
+        token = jwtUtil.generateToken(new CustomUserDetails(user));
+    }
+
+    @Test
+    void verify_ReturnsClaims_AndServesRepeatsFromCache() {
+        Claims first = jwtUtil.verify(token);
+        Claims second = jwtUtil.verify(token);
+
+        assertEquals("current_user", first.getSubject());
+        assertSame(first, second);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt.verified-tokens").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt.verified-tokens").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void verify_Throws_WhenSignatureIsTampered() {
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+    }
+}
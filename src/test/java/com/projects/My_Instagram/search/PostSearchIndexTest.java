@@ -0,0 +1,72 @@
+package com.projects.My_Instagram.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PostSearchIndexTest {
+
+    private PostSearchIndex postSearchIndex;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        postSearchIndex = new PostSearchIndex(mock(JdbcTemplate.class), transactionTemplate);
+        postSearchIndex.load();
+    }
+
+    @Test
+    void terms_IndexHashtagsWithAndWithoutHash() {
+        assertEquals(Set.of("golden", "#sunset", "sunset", "at", "the", "beach"),
+                PostSearchIndex.terms("Golden #Sunset at the beach!"));
+    }
+
+    @Test
+    void search_MatchesEveryTermNewestFirst() {
+        postSearchIndex.add(1L, "Sunset at the beach");
+        postSearchIndex.add(2L, "Morning beach run");
+        postSearchIndex.add(3L, "#sunset over the #beach");
+
+        assertEquals(List.of(3L, 1L), postSearchIndex.search("BEACH sunset", Long.MAX_VALUE, 10));
+        assertEquals(List.of(2L, 1L), postSearchIndex.search("beach", 3L, 10));
+        assertEquals(List.of(3L), postSearchIndex.search("beach", Long.MAX_VALUE, 1));
+        assertTrue(postSearchIndex.search("mountain beach", Long.MAX_VALUE, 10).isEmpty());
+        assertTrue(postSearchIndex.search("  ", Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    void searchTag_OnlyMatchesHashtags() {
+        postSearchIndex.add(1L, "Sunset at the beach");
+        postSearchIndex.add(2L, "#sunset");
+
+        assertEquals(List.of(2L), postSearchIndex.searchTag("sunset", Long.MAX_VALUE, 10));
+        assertEquals(List.of(2L), postSearchIndex.searchTag("#Sunset", Long.MAX_VALUE, 10));
+        assertTrue(postSearchIndex.searchTag("sun set", Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    void remove_DropsPostFromEveryTerm() {
+        postSearchIndex.add(1L, "#sunset beach");
+        postSearchIndex.add(2L, "#sunset");
+
+        postSearchIndex.remove(2L, "#sunset");
+
+        assertEquals(List.of(1L), postSearchIndex.searchTag("sunset", Long.MAX_VALUE, 10));
+        assertTrue(postSearchIndex.isReady());
+    }
+}
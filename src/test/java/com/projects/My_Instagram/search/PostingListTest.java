@@ -0,0 +1,77 @@
+package com.projects.My_Instagram.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingListTest {
+
+    @Test
+    void forEachDescending_VisitsIdsBelowCursorNewestFirst() {
+        PostingList list = new PostingList();
+        for (long id = 1; id <= 300; id++) {
+            list.add(id * 1000);
+        }
+
+        List<Long> visited = new ArrayList<>();
+        list.forEachDescending(150_500, id -> {
+            visited.add(id);
+            return visited.size() < 3;
+        });
+
+        assertEquals(List.of(150_000L, 149_000L, 148_000L), visited);
+        assertEquals(300, list.size());
+    }
+
+    @Test
+    void outOfOrderAddsAndRemoves_KeepIdsSorted() {
+        PostingList list = new PostingList();
+        list.add(10);
+        list.add(30);
+
+        assertTrue(list.add(20));
+        assertFalse(list.add(20));
+        assertTrue(list.contains(20));
+        assertTrue(list.remove(30));
+        assertFalse(list.remove(30));
+
+        List<Long> visited = new ArrayList<>();
+        list.forEachDescending(Long.MAX_VALUE, visited::add);
+
+        assertEquals(List.of(20L, 10L), visited);
+    }
+
+    @Test
+    void matchesSortedSet_UnderRandomUpdates() {
+        Random random = new Random(11);
+        PostingList list = new PostingList();
+        TreeSet<Long> expected = new TreeSet<>();
+        long next = 0;
+
+        for (int step = 0; step < 20000; step++) {
+            long id;
+            if (random.nextBoolean()) {
+                next += 1 + random.nextInt(random.nextBoolean() ? 3 : 100_000);
+                id = next;
+            } else {
+                id = 1 + (long) (random.nextDouble() * next);
+            }
+
+            if (random.nextInt(10) < 7) {
+                assertEquals(expected.add(id), list.add(id));
+            } else {
+                assertEquals(expected.remove(id), list.remove(id));
+            }
+
+            long probe = 1 + (long) (random.nextDouble() * next);
+            assertEquals(expected.contains(probe), list.contains(probe));
+            assertEquals(expected.size(), list.size());
+        }
+
+        List<Long> visited = new ArrayList<>();
+        list.forEachDescending(Long.MAX_VALUE, visited::add);
+        assertEquals(new ArrayList<>(expected.descendingSet()), visited);
+    }
+}
@@ -0,0 +1,105 @@
+package com.projects.My_Instagram.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+
+    private final Map<Long, Long> scores = new HashMap<>();
+
+    private PrefixIndex index(int topK, int denseSubtree) {
+        return new PrefixIndex(topK, denseSubtree, id -> scores.get(id));
+    }
+
+    @Test
+    void search_RanksByScoreThenId() {
+        PrefixIndex index = index(5, 100);
+        scores.put(1L, 10L);
+        scores.put(2L, 50L);
+        scores.put(3L, 10L);
+        index.add(1L, List.of("anna"));
+        index.add(2L, List.of("annabel"));
+        index.add(3L, List.of("ann"));
+        index.add(4L, List.of("bob"));
+        scores.put(4L, 99L);
+
+        assertEquals(List.of(2L, 1L, 3L), index.search("ann", 5));
+        assertEquals(List.of(2L, 1L), index.search("anna", 5));
+        assertEquals(List.of(2L), index.search("annab", 5));
+        assertEquals(List.of(), index.search("annx", 5));
+    }
+
+    @Test
+    void search_ReturnsEachIdOnce_WhenSeveralTermsMatch() {
+        PrefixIndex index = index(5, 100);
+        scores.put(1L, 1L);
+        index.add(1L, List.of("asma", "asma mulla", "mulla"));
+
+        assertEquals(List.of(1L), index.search("as", 5));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void remove_DropsIdAndPrunesTrie() {
+        PrefixIndex index = index(5, 100);
+        scores.put(1L, 1L);
+        scores.put(2L, 2L);
+        index.add(1L, List.of("carl"));
+        index.add(2L, List.of("carla"));
+
+        index.remove(2L, List.of("carla"));
+
+        assertEquals(List.of(1L), index.search("car", 5));
+        assertEquals(List.of(), index.search("carla", 5));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void denseNodes_MatchBruteForce_UnderRandomUpdates() {
+        Random random = new Random(7);
+        Map<Long, Set<String>> terms = new HashMap<>();
+        PrefixIndex index = index(3, 4);
+
+        for (int step = 0; step < 2000; step++) {
+            long id = random.nextInt(100);
+            if (terms.containsKey(id)) {
+                index.remove(id, terms.remove(id));
+            }
+            if (random.nextInt(4) != 0) {
+                Set<String> userTerms = new LinkedHashSet<>();
+                for (int i = 0; i <= random.nextInt(3); i++) {
+                    userTerms.add(randomWord(random, 1 + random.nextInt(4)));
+                }
+                scores.put(id, (long) random.nextInt(5));
+                terms.put(id, userTerms);
+                index.add(id, userTerms);
+            }
+
+            String prefix = randomWord(random, 1 + random.nextInt(2));
+            int limit = 1 + random.nextInt(3);
+            assertEquals(bruteForce(terms, prefix, limit), index.search(prefix, limit), "step " + step + " prefix " + prefix);
+        }
+    }
+
+    private List<Long> bruteForce(Map<Long, Set<String>> terms, String prefix, int limit) {
+        List<Long> matches = new ArrayList<>();
+        for (Map.Entry<Long, Set<String>> entry : terms.entrySet()) {
+            if (entry.getValue().stream().anyMatch(term -> term.startsWith(prefix))) {
+                matches.add(entry.getKey());
+            }
+        }
+        matches.sort(Comparator.comparingLong((Long id) -> -scores.get(id)).thenComparingLong(id -> id));
+        return matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(3)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package com.projects.My_Instagram.search;
+
+import com.projects.My_Instagram.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserSearchIndexTest {
+
+    private UserSearchIndex userSearchIndex;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        userSearchIndex = new UserSearchIndex(mock(JdbcTemplate.class), transactionTemplate);
+    }
+
+    @Test
+    void search_MatchesUsernameFullNameAndNameWords_MostFollowedFirst() {
+        userSearchIndex.load();
+        userSearchIndex.put(user(1L, "ashu_123", "Asma Mulla", 5L));
+        userSearchIndex.put(user(2L, "mullah", "Some One", 50L));
+
+        assertTrue(userSearchIndex.isReady());
+        assertEquals(List.of(2L, 1L), ids(userSearchIndex.search("Mull", 10)));
+        assertEquals(List.of(1L), ids(userSearchIndex.search("asma mu", 10)));
+        assertEquals(List.of(1L), ids(userSearchIndex.search("ASHU", 10)));
+        assertTrue(userSearchIndex.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void put_ReplacesOldNames_AndRemoveDropsUser() {
+        userSearchIndex.load();
+        userSearchIndex.put(user(1L, "old_name", "Old Person", 0L));
+
+        userSearchIndex.put(user(1L, "new_name", "New Person", 0L));
+
+        assertTrue(userSearchIndex.search("old", 10).isEmpty());
+        assertEquals(List.of(1L), ids(userSearchIndex.search("new", 10)));
+
+        userSearchIndex.remove(1L);
+
+        assertTrue(userSearchIndex.search("new", 10).isEmpty());
+    }
+
+    private static User user(Long id, String username, String fullName, Long followerCount) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setFullName(fullName);
+        user.setFollowerCount(followerCount);
+        return user;
+    }
+
+    private static List<Long> ids(List<UserSearchIndex.Entry> entries) {
+        return entries.stream().map(UserSearchIndex.Entry::id).toList();
+    }
+}
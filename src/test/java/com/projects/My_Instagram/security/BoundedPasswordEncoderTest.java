@@ -0,0 +1,73 @@
+package com.projects.My_Instagram.security;
+
+import com.projects.My_Instagram.exceptions.AppException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+
+import static com.projects.My_Instagram.constants.exception.ExceptionMessages.SERVER_BUSY;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private ThreadPoolTaskExecutor executor;
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.initialize();
+        passwordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_RunOnExecutor() {
+        String hash = passwordEncoder.encode("password123");
+
+        assertTrue(passwordEncoder.matches("password123", hash));
+        assertFalse(passwordEncoder.matches("wrongpassword", hash));
+    }
+
+    @Test
+    void upgradeEncoding_WhenStoredCostIsLower() {
+        assertTrue(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password123")));
+        assertFalse(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password123")));
+    }
+
+    @Test
+    void encode_ThrowsTooManyRequests_WhenPoolIsSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+
+        try {
+            AppException exception = assertThrows(AppException.class, () -> passwordEncoder.encode("password123"));
+
+            assertEquals(SERVER_BUSY.getMessage(), exception.getMessage());
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatus());
+        } finally {
+            release.countDown();
+        }
+    }
+}
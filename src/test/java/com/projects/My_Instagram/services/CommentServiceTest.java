@@ -1,7 +1,9 @@
 package com.projects.My_Instagram.services;
 
 import com.projects.My_Instagram.DTOs.response.CommentResponse;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.exceptions.AccessDeniedException;
+import com.projects.My_Instagram.exceptions.AppException;
 import com.projects.My_Instagram.exceptions.CommentNotFoundException;
 import com.projects.My_Instagram.exceptions.PostNotFoundException;
 import com.projects.My_Instagram.helper.UserUtils;
@@ -9,8 +11,9 @@ import com.projects.My_Instagram.models.Comment;
 import com.projects.My_Instagram.models.Post;
 import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.repositories.CommentRepository;
+import com.projects.My_Instagram.repositories.CommentRow;
 import com.projects.My_Instagram.repositories.PostRepository;
-import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.security.CurrentUserContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,6 +22,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -31,6 +35,7 @@ import static com.projects.My_Instagram.constants.exception.ExceptionMessages.*;
 import static com.projects.My_Instagram.constants.response.ResponseMessages.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,8 +45,9 @@ class CommentServiceTest {
 
     @Mock private CommentRepository commentRepository;
     @Mock private UserUtils userUtils;
-    @Mock private UserRepository userRepository;
+    @Mock private CurrentUserContext currentUserContext;
     @Mock private PostRepository postRepository;
+    @Mock private VisibilityService visibilityService;
 
     @Mock private SecurityContext securityContext;
     @Mock private Authentication authentication;
@@ -75,6 +81,9 @@ class CommentServiceTest {
         comment.setCommentedPost(post);
         comment.setUploadedAt(new Date());
 
+        when(visibilityService.canView(anyLong(), any(User.class))).thenReturn(true);
+        when(visibilityService.canView(anyLong(), anyLong(), any())).thenReturn(true);
+
         // SecurityContext
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
@@ -84,8 +93,8 @@ class CommentServiceTest {
     // ----------------- Helper Stubs -----------------
 
     private void mockCurrentUser() {
-        when(userRepository.findByUsername("current_user"))
-                .thenReturn(Optional.of(currentUser));
+        when(currentUserContext.get()).thenReturn(currentUser);
+        when(currentUserContext.getId()).thenReturn(currentUser.getId());
     }
 
     private void mockFetchPost(long id) {
@@ -124,6 +133,19 @@ class CommentServiceTest {
         verify(commentRepository, never()).save(any());
     }
 
+    @Test
+    void createComment_ThrowsException_WhenOwnerIsPrivateAndNotFollowed() {
+        mockCurrentUser();
+        mockFetchPost(1L);
+        when(visibilityService.canView(1L, post.getUser())).thenReturn(false);
+
+        AppException ex = assertThrows(AppException.class,
+                () -> commentService.createComment(1L, "Test comment"));
+
+        assertEquals(YOU_CANNOT_LIKE.getMessage(), ex.getMessage());
+        verify(commentRepository, never()).save(any());
+    }
+
     @Test
     void deleteComment_Success() {
         mockCurrentUser();
@@ -173,48 +195,80 @@ class CommentServiceTest {
 
     @Test
     void getAllComments_Success() {
-        Comment c1 = new Comment();
-        c1.setContent("Comment 1");
-        c1.setCommentedPost(post);
-        c1.setCommentedUser(currentUser);
-
-        Comment c2 = new Comment();
-        c2.setContent("Comment 2");
-        c2.setCommentedPost(post);
-        c2.setCommentedUser(currentUser);
+        Date now = new Date();
+        List<CommentRow> rows = Arrays.asList(
+                new CommentRow(1L, 2L, false, 2L, "Comment 2", now, "current_user"),
+                new CommentRow(1L, 2L, false, 1L, "Comment 1", now, "current_user"));
 
-        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
-        when(commentRepository.findByCommentedPostId(1L))
-                .thenReturn(Arrays.asList(c1, c2));
+        when(commentRepository.findNewestPage(eq(1L), eq(Long.MAX_VALUE), any(Pageable.class))).thenReturn(rows);
 
-        ResponseEntity<List<CommentResponse>> response =
-                commentService.getAllComments(1L);
+        ResponseEntity<PageResponse<CommentResponse>> response =
+                commentService.getAllComments(1L, null, 20, false);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(2, response.getBody().size());
+        assertEquals(2, response.getBody().getItems().size());
+        assertEquals("Comment 2", response.getBody().getItems().get(0).comment());
+        assertNull(response.getBody().getNextCursor());
+    }
+
+    @Test
+    void getAllComments_ReturnsCursor_WhenMoreCommentsExist() {
+        Date now = new Date();
+        List<CommentRow> rows = Arrays.asList(
+                new CommentRow(1L, 2L, false, 1L, "Comment 1", now, "current_user"),
+                new CommentRow(1L, 2L, false, 2L, "Comment 2", now, "current_user"));
+
+        when(commentRepository.findOldestPage(eq(1L), eq(0L), any(Pageable.class))).thenReturn(rows);
+        when(commentRepository.findOldestPage(eq(1L), eq(1L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(rows.get(1)));
+
+        PageResponse<CommentResponse> firstPage = commentService.getAllComments(1L, null, 1, true).getBody();
+
+        assertEquals(1, firstPage.getItems().size());
+        assertEquals("Comment 1", firstPage.getItems().get(0).comment());
+        assertNotNull(firstPage.getNextCursor());
+
+        PageResponse<CommentResponse> secondPage = commentService.getAllComments(1L, firstPage.getNextCursor(), 1, true).getBody();
+
+        assertEquals("Comment 2", secondPage.getItems().get(0).comment());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void getAllComments_ThrowsException_WhenOwnerIsPrivateAndNotFollowed() {
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(commentRepository.findNewestPage(eq(1L), anyLong(), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(new CommentRow(1L, 2L, true, 1L, "Comment 1", new Date(), "post_owner")));
+        when(visibilityService.canView(1L, 2L, true)).thenReturn(false);
+
+        AppException ex = assertThrows(AppException.class,
+                () -> commentService.getAllComments(1L, null, 20, false));
+
+        assertEquals(PRIVATE_ACCOUNT.getMessage(), ex.getMessage());
+        assertEquals(HttpStatus.FORBIDDEN, ex.getStatus());
     }
 
     @Test
     void getAllComments_ThrowsException_WhenPostNotFound() {
-        when(postRepository.findById(1L)).thenReturn(Optional.empty());
+        when(commentRepository.findNewestPage(eq(1L), anyLong(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
 
         PostNotFoundException ex =
                 assertThrows(PostNotFoundException.class,
-                        () -> commentService.getAllComments(1L));
+                        () -> commentService.getAllComments(1L, null, 20, false));
 
         assertEquals(POST_NOT_FOUND.getMessage(), ex.getMessage());
     }
 
     @Test
     void getAllComments_ReturnsEmpty_WhenNoComments() {
-        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
-        when(commentRepository.findByCommentedPostId(1L))
-                .thenReturn(Collections.emptyList());
+        when(commentRepository.findNewestPage(eq(1L), anyLong(), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(new CommentRow(1L, 2L, false, null, null, null, null)));
 
-        ResponseEntity<List<CommentResponse>> response =
-                commentService.getAllComments(1L);
+        ResponseEntity<PageResponse<CommentResponse>> response =
+                commentService.getAllComments(1L, null, 20, false);
 
-        assertTrue(response.getBody().isEmpty());
+        assertTrue(response.getBody().getItems().isEmpty());
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 }
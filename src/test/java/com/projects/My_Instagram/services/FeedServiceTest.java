@@ -0,0 +1,184 @@
+package com.projects.My_Instagram.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
+import com.projects.My_Instagram.DTOs.response.PostResponse;
+import com.projects.My_Instagram.graph.FollowGraph;
+import com.projects.My_Instagram.graph.SuggestionIndex;
+import com.projects.My_Instagram.helper.CursorCodec;
+import com.projects.My_Instagram.helper.UserUtils;
+import com.projects.My_Instagram.models.Post;
+import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.repositories.FollowRepository;
+import com.projects.My_Instagram.repositories.FollowRequestRepository;
+import com.projects.My_Instagram.repositories.PostRepository;
+import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.security.CurrentUserContext;
+import com.projects.My_Instagram.timeline.TimelineStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FeedServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CurrentUserContext currentUserContext;
+
+    @Mock
+    private VisibilityService visibilityService;
+
+    private TimelineStore timelineStore;
+    private FeedService feedService;
+    private User currentUser;
+
+    @BeforeEach
+    void setUp() {
+        timelineStore = new TimelineStore(3, 100, Duration.ofHours(1));
+        feedService = new FeedService(timelineStore, postRepository, userRepository, currentUserContext, visibilityService, 2);
+
+        currentUser = new User();
+        currentUser.setId(1L);
+        currentUser.setUsername("current_user");
+        when(currentUserContext.getId()).thenReturn(currentUser.getId());
+        when(visibilityService.canView(eq(1L), any(User.class))).thenReturn(true);
+        when(postRepository.findAllWithUserByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<Post> posts = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                posts.add(post((Long) id));
+            }
+            return posts;
+        });
+    }
+
+    private Post post(Long id) {
+        Post post = new Post();
+        post.setId(id);
+        post.setUser(currentUser);
+        post.setLikedUsers(new HashSet<>());
+        return post;
+    }
+
+    @Test
+    void getFeed_LoadsTimelineOnce_AndReturnsNewestFirst() {
+        when(postRepository.findFeedPostIds(eq(1L), any(Pageable.class))).thenReturn(List.of(9L, 7L, 4L));
+
+        PageResponse<PostResponse> firstPage = feedService.getFeed(null, 2);
+        PageResponse<PostResponse> secondPage = feedService.getFeed(firstPage.getNextCursor(), 2);
+
+        assertEquals(List.of(9L, 7L), ids(firstPage));
+        assertEquals(CursorCodec.encode(7L), firstPage.getNextCursor());
+        assertEquals(List.of(4L), ids(secondPage));
+        assertNull(secondPage.getNextCursor());
+        verify(postRepository, times(1)).findFeedPostIds(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    void fanOutPost_PushesIntoMaterializedTimelines_AndTrimsToCapacity() {
+        when(postRepository.findFeedPostIds(eq(1L), any(Pageable.class))).thenReturn(List.of(9L, 7L, 4L));
+        feedService.getFeed(null, 10);
+
+        when(userRepository.findFollowerIds(eq(2L), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 3L));
+        when(userRepository.findFollowerIds(eq(2L), eq(3L), any(Pageable.class))).thenReturn(List.of(5L));
+
+        feedService.fanOutPost(2L, 12L);
+
+        assertEquals(List.of(12L, 9L, 7L), ids(feedService.getFeed(null, 10)));
+        verify(userRepository, times(2)).findFollowerIds(eq(2L), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void getFeed_ReflectsFollowAndUnfollow() {
+        User targetUser = new User();
+        targetUser.setId(2L);
+        targetUser.setUsername("target_user");
+        targetUser.setPrivateAccount(false);
+        UserUtils userUtils = mock(UserUtils.class);
+        when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
+        when(userRepository.insertFollow(1L, 2L)).thenReturn(1);
+        when(userRepository.deleteFollow(1L, 2L)).thenReturn(1);
+        FollowService followService = new FollowService(userUtils, userRepository, mock(FollowRequestRepository.class),
+                mock(FollowRepository.class), currentUserContext, new ObjectMapper(), mock(FollowGraph.class),
+                mock(SuggestionIndex.class), timelineStore);
+
+        when(postRepository.findFeedPostIds(eq(1L), any(Pageable.class))).thenReturn(List.of(4L), List.of(10L, 4L), List.of(4L));
+
+        assertEquals(List.of(4L), ids(feedService.getFeed(null, 10)));
+
+        followService.followUser("target_user");
+        assertEquals(List.of(10L, 4L), ids(feedService.getFeed(null, 10)));
+
+        followService.unfollowUser("target_user");
+        assertEquals(List.of(4L), ids(feedService.getFeed(null, 10)));
+    }
+
+    @Test
+    void getFeed_SkipsPostsTheViewerCanNoLongerSee() {
+        User privateOwner = new User();
+        privateOwner.setId(2L);
+        privateOwner.setPrivateAccount(true);
+        when(postRepository.findFeedPostIds(eq(1L), any(Pageable.class))).thenReturn(List.of(9L, 7L, 4L));
+        when(postRepository.findAllWithUserByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<Post> posts = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                Post post = post((Long) id);
+                if (post.getId() == 7L) {
+                    post.setUser(privateOwner);
+                }
+                posts.add(post);
+            }
+            return posts;
+        });
+        when(visibilityService.canView(1L, privateOwner)).thenReturn(false);
+
+        assertEquals(List.of(9L, 4L), ids(feedService.getFeed(null, 10)));
+    }
+
+    @Test
+    void getFeed_ReadsFurther_WhenAWholePageIsFilteredOut() {
+        User privateOwner = new User();
+        privateOwner.setId(2L);
+        privateOwner.setPrivateAccount(true);
+        when(postRepository.findFeedPostIds(eq(1L), any(Pageable.class))).thenReturn(List.of(9L, 7L, 4L));
+        when(postRepository.findAllWithUserByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<Post> posts = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                Post post = post((Long) id);
+                if (post.getId() != 4L) {
+                    post.setUser(privateOwner);
+                }
+                posts.add(post);
+            }
+            return posts;
+        });
+        when(visibilityService.canView(1L, privateOwner)).thenReturn(false);
+
+        PageResponse<PostResponse> page = feedService.getFeed(null, 1);
+
+        assertEquals(List.of(4L), ids(page));
+        assertNull(page.getNextCursor());
+    }
+
+    private static List<Long> ids(PageResponse<PostResponse> page) {
+        return page.getItems().stream().map(PostResponse::getId).toList();
+    }
+}
@@ -1,27 +1,52 @@
 package com.projects.My_Instagram.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projects.My_Instagram.DTOs.response.FollowRequestResponse;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
+import com.projects.My_Instagram.DTOs.response.FollowedByResponse;
+import com.projects.My_Instagram.DTOs.response.RelationshipResponse;
+import com.projects.My_Instagram.DTOs.response.SuggestionResponse;
 import com.projects.My_Instagram.exceptions.AppException;
+import com.projects.My_Instagram.graph.FollowGraph;
+import com.projects.My_Instagram.graph.SuggestionIndex;
 import com.projects.My_Instagram.helper.UserUtils;
 import com.projects.My_Instagram.models.FollowRequest;
 import com.projects.My_Instagram.models.FollowRequestStatus;
 import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.repositories.FollowRepository;
 import com.projects.My_Instagram.repositories.FollowRequestRepository;
+import com.projects.My_Instagram.repositories.FollowRequestRow;
+import com.projects.My_Instagram.repositories.FollowRow;
 import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.security.CurrentUserContext;
+import com.projects.My_Instagram.timeline.TimelineStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.roaringbitmap.RoaringBitmap;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static com.projects.My_Instagram.constants.exception.ExceptionMessages.*;
 import com.projects.My_Instagram.constants.response.ResponseMessages;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +61,24 @@ class FollowServiceTest {
     @Mock
     private FollowRequestRepository followRequestRepository;
 
+    @Mock
+    private FollowRepository followRepository;
+
+    @Mock
+    private CurrentUserContext currentUserContext;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private FollowGraph followGraph;
+
+    @Mock
+    private SuggestionIndex suggestionIndex;
+
+    @Mock
+    private TimelineStore timelineStore;
+
     @InjectMocks
     private FollowService followService;
 
@@ -60,23 +103,28 @@ class FollowServiceTest {
     @Test
     void followUser_Success_PublicAccount() {
         targetUser.setPrivateAccount(false);
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
+        when(currentUserContext.getId()).thenReturn(1L);
         when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.existsFollow(1L, 2L)).thenReturn(false);
+        when(userRepository.insertFollow(1L, 2L)).thenReturn(1);
 
         var response = followService.followUser("target_user");
 
         assertEquals(201, response.getStatusCodeValue());
         assertEquals(ResponseMessages.FOLLOW_SUCCESS.getMessage(), response.getBody());
-        assertTrue(currentUser.getFollowing().contains(targetUser));
-        assertTrue(targetUser.getFollowers().contains(currentUser));
-        verify(userRepository, times(2)).save(any(User.class));
+        verify(userRepository, times(1)).insertFollow(1L, 2L);
+        verify(userRepository, times(1)).adjustFollowCounts(1L, 2L, 1);
+        verify(followGraph, times(1)).addEdge(1L, 2L);
+        verify(suggestionIndex, times(1)).onFollow(1L, 2L);
+        verify(timelineStore, times(1)).invalidate(1L);
+        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
     void followUser_Success_PrivateAccount_SendsRequest() {
         targetUser.setPrivateAccount(true);
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(currentUserContext.getReference()).thenReturn(currentUser);
         when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
         when(followRequestRepository.existsByRequesterAndTargetUserAndStatus(
                 currentUser, targetUser, FollowRequestStatus.PENDING)).thenReturn(false);
@@ -87,39 +135,70 @@ class FollowServiceTest {
         assertEquals(201, response.getStatusCodeValue());
         assertEquals(ResponseMessages.FOLLOW_REQUEST_SENT.getMessage(), response.getBody());
         verify(followRequestRepository, times(1)).save(any(FollowRequest.class));
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).insertFollow(anyLong(), anyLong());
     }
 
     @Test
     void followUser_ThrowsException_WhenFollowingSelf() {
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
+        when(currentUserContext.getId()).thenReturn(1L);
         when(userUtils.fetchUser("current_user")).thenReturn(currentUser);
 
         AppException exception = assertThrows(AppException.class, () ->
                 followService.followUser("current_user"));
 
         assertEquals(FOLLOW_SELF.getMessage(), exception.getMessage());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).insertFollow(anyLong(), anyLong());
     }
 
     @Test
     void followUser_ThrowsException_WhenAlreadyFollowing() {
         targetUser.setPrivateAccount(false);
-        currentUser.getFollowing().add(targetUser);
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
+        when(currentUserContext.getId()).thenReturn(1L);
         when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
+        when(userRepository.existsFollow(1L, 2L)).thenReturn(true);
 
         AppException exception = assertThrows(AppException.class, () ->
                 followService.followUser("target_user"));
 
         assertEquals(ALREADY_FOLLOWING.getMessage(), exception.getMessage());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).insertFollow(anyLong(), anyLong());
+    }
+
+    @Test
+    void followUser_ThrowsException_WhenConcurrentFollowWins() {
+        targetUser.setPrivateAccount(false);
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
+        when(userRepository.existsFollow(1L, 2L)).thenReturn(false);
+        when(userRepository.insertFollow(1L, 2L)).thenReturn(0);
+
+        AppException exception = assertThrows(AppException.class, () ->
+                followService.followUser("target_user"));
+
+        assertEquals(ALREADY_FOLLOWING.getMessage(), exception.getMessage());
+    }
+
+    @Test
+    void followUser_ThrowsConflict_WhenConcurrentInsertHitsPrimaryKey() {
+        targetUser.setPrivateAccount(false);
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
+        when(userRepository.existsFollow(1L, 2L)).thenReturn(false);
+        when(userRepository.insertFollow(1L, 2L)).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException("duplicate", "23505"), "user_following_pkey")));
+
+        AppException exception = assertThrows(AppException.class, () ->
+                followService.followUser("target_user"));
+
+        assertEquals(CONCURRENT_UPDATE.getMessage(), exception.getMessage());
+        verify(userRepository, never()).adjustFollowCounts(anyLong(), anyLong(), anyLong());
     }
 
     @Test
     void followUser_ThrowsException_WhenRequestAlreadySent() {
         targetUser.setPrivateAccount(true);
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(currentUserContext.getReference()).thenReturn(currentUser);
         when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
         when(followRequestRepository.existsByRequesterAndTargetUserAndStatus(
                 currentUser, targetUser, FollowRequestStatus.PENDING)).thenReturn(true);
@@ -133,159 +212,275 @@ class FollowServiceTest {
 
     @Test
     void unfollowUser_Success() {
-        currentUser.getFollowing().add(targetUser);
-        targetUser.getFollowers().add(currentUser);
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
+        when(currentUserContext.getId()).thenReturn(1L);
         when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.deleteFollow(1L, 2L)).thenReturn(1);
 
         var response = followService.unfollowUser("target_user");
 
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(ResponseMessages.UNFOLLOW_SUCCESS.getMessage(), response.getBody());
-        assertFalse(currentUser.getFollowing().contains(targetUser));
-        assertFalse(targetUser.getFollowers().contains(currentUser));
-        verify(userRepository, times(2)).save(any(User.class));
+        verify(userRepository, times(1)).deleteFollow(1L, 2L);
+        verify(userRepository, times(1)).adjustFollowCounts(1L, 2L, -1);
+        verify(followGraph, times(1)).removeEdge(1L, 2L);
+        verify(timelineStore, times(1)).invalidate(1L);
+        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
     void unfollowUser_ThrowsException_WhenNotFollowing() {
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
+        when(currentUserContext.getId()).thenReturn(1L);
         when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
+        when(userRepository.deleteFollow(1L, 2L)).thenReturn(0);
 
         AppException exception = assertThrows(AppException.class, () ->
                 followService.unfollowUser("target_user"));
 
         assertEquals(NOT_FOLLOWING.getMessage(), exception.getMessage());
-        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).adjustFollowCounts(anyLong(), anyLong(), anyLong());
     }
 
     @Test
-    void getFollowers_Success() {
-        User follower1 = new User();
-        follower1.setUsername("follower1");
-        User follower2 = new User();
-        follower2.setUsername("follower2");
-        currentUser.setFollowers(new HashSet<>(Arrays.asList(follower1, follower2)));
+    void getFollowers_ReturnsPageAndCursor() {
+        LocalDateTime now = LocalDateTime.now();
+        List<FollowRow> rows = Arrays.asList(
+                followRow(3L, "follower3", now),
+                followRow(2L, "follower2", now.minusMinutes(1)),
+                followRow(1L, "follower1", now.minusMinutes(2)));
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(followRepository.findFollowers(eq(1L), any(LocalDateTime.class), eq(Long.MAX_VALUE), any(Pageable.class))).thenReturn(rows);
+
+        PageResponse<UserResponse> page = followService.getFollowers(null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals("follower3", page.getItems().get(0).getUsername());
+        assertNotNull(page.getNextCursor());
 
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
+        when(followRepository.findFollowers(1L, now.minusMinutes(1), 2L, PageRequest.of(0, 3))).thenReturn(rows.subList(2, 3));
 
-        List<UserResponse> followers = followService.getFollowers();
+        PageResponse<UserResponse> nextPage = followService.getFollowers(page.getNextCursor(), 2);
 
-        assertEquals(2, followers.size());
-        verify(userUtils, times(1)).fetchCurrectUser();
+        assertEquals(1, nextPage.getItems().size());
+        assertNull(nextPage.getNextCursor());
     }
 
     @Test
     void getFollowing_Success() {
-        User following1 = new User();
-        following1.setUsername("following1");
-        User following2 = new User();
-        following2.setUsername("following2");
-        currentUser.setFollowing(new HashSet<>(Arrays.asList(following1, following2)));
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(followRepository.findFollowing(eq(1L), any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(followRow(2L, "target_user", LocalDateTime.now())));
+
+        PageResponse<UserResponse> following = followService.getFollowing(null, 20);
+
+        assertEquals(1, following.getItems().size());
+        assertNull(following.getNextCursor());
+        verify(userUtils, never()).fetchCurrectUser();
+    }
+
+    @Test
+    void exportFollowers_WritesOneJsonLinePerFollower() throws Exception {
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(followRepository.findFollowers(eq(1L), any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenReturn(Arrays.asList(followRow(3L, "follower3", LocalDateTime.now()), followRow(2L, "follower2", LocalDateTime.now())));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        followService.exportFollowers().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("follower3", objectMapper.readValue(lines[0], UserResponse.class).getUsername());
+        assertEquals("follower2", objectMapper.readValue(lines[1], UserResponse.class).getUsername());
+    }
 
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
+    @Test
+    void getFollowedBy_ReturnsSampleAndTotal() {
+        User friend = new User();
+        friend.setId(10L);
+        friend.setUsername("friend");
+        when(followGraph.isReady()).thenReturn(true);
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
+        when(followGraph.followedByFollowing(1L, 2L)).thenReturn(RoaringBitmap.bitmapOf(10, 11, 12, 13, 14));
+        when(userRepository.findAllById(List.of(10L, 11L, 12L))).thenReturn(List.of(friend));
 
-        List<UserResponse> following = followService.getFollowing();
+        FollowedByResponse response = followService.getFollowedBy("target_user");
 
-        assertEquals(2, following.size());
-        verify(userUtils, times(1)).fetchCurrectUser();
+        assertEquals(5, response.getTotalCount());
+        assertEquals(List.of("friend"), response.getUsernames());
     }
 
     @Test
-    void getAllFollowRequests_Success() {
-        FollowRequest request1 = new FollowRequest();
-        request1.setRequester(targetUser);
-        request1.setRequestedAt(new Date());
+    void getFollowedBy_ThrowsException_WhenGraphNotLoaded() {
+        when(followGraph.isReady()).thenReturn(false);
 
-        User requester2 = new User();
-        requester2.setUsername("requester2");
-        FollowRequest request2 = new FollowRequest();
-        request2.setRequester(requester2);
-        request2.setRequestedAt(new Date());
+        AppException exception = assertThrows(AppException.class, () ->
+                followService.getFollowedBy("target_user"));
 
-        List<FollowRequest> requests = Arrays.asList(request1, request2);
+        assertEquals(FOLLOW_GRAPH_LOADING.getMessage(), exception.getMessage());
+    }
 
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
-        when(followRequestRepository.findByTargetUserAndStatus(
-                currentUser, FollowRequestStatus.PENDING)).thenReturn(requests);
+    @Test
+    void getSuggestions_SkipsFollowedAndRequestedAccounts() {
+        User suggested = new User();
+        suggested.setId(12L);
+        suggested.setUsername("suggested");
+        when(followGraph.isReady()).thenReturn(true);
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(suggestionIndex.get(1L)).thenReturn(new int[]{10, 5, 11, 4, 12, 3});
+        when(followRequestRepository.findTargetIdsByRequesterIdAndStatus(1L, FollowRequestStatus.PENDING)).thenReturn(List.of(11L));
+        when(followGraph.isFollowing(1L, 10L)).thenReturn(true);
+        when(followGraph.isFollowing(1L, 12L)).thenReturn(false);
+        when(userRepository.findAllById(Set.of(12L))).thenReturn(List.of(suggested));
+
+        List<SuggestionResponse> suggestions = followService.getSuggestions(20);
+
+        assertEquals(1, suggestions.size());
+        assertEquals("suggested", suggestions.get(0).getUser().getUsername());
+        assertEquals(3, suggestions.get(0).getFollowedByCount());
+    }
 
-        List<FollowRequestResponse> followRequests = followService.getAllFollowRequests();
+    @Test
+    void getSuggestions_ThrowsException_WhileFirstListIsComputing() {
+        when(followGraph.isReady()).thenReturn(true);
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(suggestionIndex.get(1L)).thenReturn(null);
 
-        assertEquals(2, followRequests.size());
-        verify(followRequestRepository, times(1))
-                .findByTargetUserAndStatus(currentUser, FollowRequestStatus.PENDING);
+        AppException exception = assertThrows(AppException.class, () ->
+                followService.getSuggestions(20));
+
+        assertEquals(SUGGESTIONS_LOADING.getMessage(), exception.getMessage());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
     }
 
     @Test
-    void acceptFollowRequest_Success() {
-        FollowRequest followRequest = new FollowRequest();
-        followRequest.setRequester(targetUser);
-        followRequest.setTargetUser(currentUser);
-        followRequest.setStatus(FollowRequestStatus.PENDING);
+    void getRelationship_FallsBackToDatabase_WhenGraphNotLoaded() {
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(userUtils.fetchUser("target_user")).thenReturn(targetUser);
+        when(followGraph.isReady()).thenReturn(false);
+        when(userRepository.existsFollow(1L, 2L)).thenReturn(true);
+        when(userRepository.existsFollow(2L, 1L)).thenReturn(true);
+
+        RelationshipResponse response = followService.getRelationship("target_user");
 
-        List<FollowRequest> requests = Collections.singletonList(followRequest);
+        assertTrue(response.isMutual());
+    }
+
+    private FollowRow followRow(Long userId, String username, LocalDateTime followedAt) {
+        return new FollowRow(userId, username, null, null, false, 0L, 0L, 0L, followedAt);
+    }
 
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
-        when(followRequestRepository.findByTargetUserAndStatus(
-                currentUser, FollowRequestStatus.PENDING)).thenReturn(requests);
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    @Test
+    void getAllFollowRequests_ReturnsPageAndCursor() {
+        Date now = new Date();
+        List<FollowRequestRow> rows = Arrays.asList(
+                new FollowRequestRow(7L, "target_user", now),
+                new FollowRequestRow(5L, "requester2", now));
+
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(followRequestRepository.findPage(eq(1L), eq(FollowRequestStatus.PENDING), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(rows);
+
+        PageResponse<FollowRequestResponse> page = followService.getAllFollowRequests(null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals("target_user", page.getItems().get(0).getUsername());
+        assertNotNull(page.getNextCursor());
+        verify(followRequestRepository, never()).findByTargetUserAndStatus(any(User.class), any(FollowRequestStatus.class));
+    }
+
+    @Test
+    void acceptFollowRequest_Success() {
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(userRepository.findIdByUsername("target_user")).thenReturn(Optional.of(2L));
+        when(followRequestRepository.deleteRequest(1L, 2L, FollowRequestStatus.PENDING)).thenReturn(1);
+        when(userRepository.insertFollow(2L, 1L)).thenReturn(1);
 
         var response = followService.acceptFollowRequest("target_user");
 
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(ResponseMessages.FOLLOW_REQUEST_ACCEPTED.getMessage(), response.getBody());
-        assertTrue(currentUser.getFollowers().contains(targetUser));
-        assertTrue(targetUser.getFollowing().contains(currentUser));
-        verify(followRequestRepository, times(1)).delete(followRequest);
-        verify(userRepository, times(2)).save(any(User.class));
+        verify(userRepository, times(1)).insertFollow(2L, 1L);
+        verify(userRepository, times(1)).adjustFollowCounts(2L, 1L, 1);
+        verify(followGraph, times(1)).addEdge(2L, 1L);
+        verify(timelineStore, times(1)).invalidate(2L);
+        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
     void acceptFollowRequest_ThrowsException_WhenRequestNotFound() {
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
-        when(followRequestRepository.findByTargetUserAndStatus(
-                currentUser, FollowRequestStatus.PENDING)).thenReturn(Collections.emptyList());
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(userRepository.findIdByUsername("target_user")).thenReturn(Optional.of(2L));
+        when(followRequestRepository.deleteRequest(1L, 2L, FollowRequestStatus.PENDING)).thenReturn(0);
 
         AppException exception = assertThrows(AppException.class, () ->
                 followService.acceptFollowRequest("target_user"));
 
         assertEquals(FOLLOW_REQUEST_NOT_FOUND.getMessage(), exception.getMessage());
-        verify(followRequestRepository, never()).delete(any(FollowRequest.class));
+        verify(userRepository, never()).insertFollow(anyLong(), anyLong());
     }
 
     @Test
     void rejectFollowRequest_Success() {
-        FollowRequest followRequest = new FollowRequest();
-        followRequest.setRequester(targetUser);
-        followRequest.setTargetUser(currentUser);
-        followRequest.setStatus(FollowRequestStatus.PENDING);
-
-        List<FollowRequest> requests = Collections.singletonList(followRequest);
-
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
-        when(followRequestRepository.findByTargetUserAndStatus(
-                currentUser, FollowRequestStatus.PENDING)).thenReturn(requests);
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(userRepository.findIdByUsername("target_user")).thenReturn(Optional.of(2L));
+        when(followRequestRepository.deleteRequest(1L, 2L, FollowRequestStatus.PENDING)).thenReturn(1);
 
         var response = followService.rejectFollowRequest("target_user");
 
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(ResponseMessages.FOLLOW_REQUEST_REJECTED.getMessage(), response.getBody());
-        verify(followRequestRepository, times(1)).delete(followRequest);
+        verify(userRepository, never()).insertFollow(anyLong(), anyLong());
         verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
-    void rejectFollowRequest_ThrowsException_WhenRequestNotFound() {
-        when(userUtils.fetchCurrectUser()).thenReturn(currentUser);
-        when(followRequestRepository.findByTargetUserAndStatus(
-                currentUser, FollowRequestStatus.PENDING)).thenReturn(Collections.emptyList());
+    void rejectFollowRequest_ThrowsException_WhenRequesterUnknown() {
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(userRepository.findIdByUsername("target_user")).thenReturn(Optional.empty());
 
         AppException exception = assertThrows(AppException.class, () ->
                 followService.rejectFollowRequest("target_user"));
 
         assertEquals(FOLLOW_REQUEST_NOT_FOUND.getMessage(), exception.getMessage());
-        verify(followRequestRepository, never()).delete(any(FollowRequest.class));
+        verify(followRequestRepository, never()).deleteRequest(anyLong(), anyLong(), any(FollowRequestStatus.class));
+    }
+
+    @Test
+    void acceptAllFollowRequests_RunsSetBasedStatements() {
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(followRequestRepository.findMaxId(1L, FollowRequestStatus.PENDING)).thenReturn(9L);
+        when(followRequestRepository.findRequesterIds(1L, FollowRequestStatus.PENDING, 9L)).thenReturn(List.of(2L, 3L));
+        when(followRequestRepository.insertFollowsFromPending(1L, "PENDING", 9L)).thenReturn(2);
+
+        var response = followService.acceptAllFollowRequests();
+
+        assertEquals(String.format(ResponseMessages.FOLLOW_REQUESTS_ACCEPTED.getMessage(), 2), response.getBody());
+        verify(followRequestRepository).incrementRequesterFollowingCounts(1L, "PENDING", 9L);
+        verify(userRepository).adjustFollowerCount(1L, 2);
+        verify(followRequestRepository).deleteUpTo(1L, FollowRequestStatus.PENDING, 9L);
+        verify(followGraph).addEdge(2L, 1L);
+        verify(followGraph).addEdge(3L, 1L);
+        verify(followRequestRepository, never()).findByTargetUserAndStatus(any(User.class), any(FollowRequestStatus.class));
     }
-}
 
+    @Test
+    void acceptAllFollowRequests_DoesNothing_WhenNoneArePending() {
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(followRequestRepository.findMaxId(1L, FollowRequestStatus.PENDING)).thenReturn(null);
+
+        var response = followService.acceptAllFollowRequests();
+
+        assertEquals(String.format(ResponseMessages.FOLLOW_REQUESTS_ACCEPTED.getMessage(), 0), response.getBody());
+        verify(followRequestRepository, never()).insertFollowsFromPending(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    void rejectAllFollowRequests_DeletesInOneStatement() {
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(followRequestRepository.deleteUpTo(1L, FollowRequestStatus.PENDING, Long.MAX_VALUE)).thenReturn(4);
+
+        var response = followService.rejectAllFollowRequests();
+
+        assertEquals(String.format(ResponseMessages.FOLLOW_REQUESTS_REJECTED.getMessage(), 4), response.getBody());
+    }
+}
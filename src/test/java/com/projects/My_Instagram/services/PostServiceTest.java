@@ -1,14 +1,23 @@
 package com.projects.My_Instagram.services;
 
 import com.projects.My_Instagram.DTOs.request.PostRequest;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.DTOs.response.PostResponse;
+import com.projects.My_Instagram.DTOs.response.PurgeJobResponse;
+import com.projects.My_Instagram.DTOs.response.TrendingTagResponse;
 import com.projects.My_Instagram.exceptions.AccessDeniedException;
+import com.projects.My_Instagram.exceptions.AppException;
 import com.projects.My_Instagram.exceptions.PostNotFoundException;
 import com.projects.My_Instagram.exceptions.UserNotFoundException;
+import com.projects.My_Instagram.helper.UserUtils;
+import com.projects.My_Instagram.jobs.PostPurgeJob;
 import com.projects.My_Instagram.models.Post;
 import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.repositories.PostRepository;
 import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.search.PostSearchIndex;
+import com.projects.My_Instagram.security.CurrentUserContext;
+import com.projects.My_Instagram.trending.TrendingTags;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,12 +26,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -30,6 +43,7 @@ import static com.projects.My_Instagram.constants.exception.ExceptionMessages.*;
 import static com.projects.My_Instagram.constants.response.ResponseMessages.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +56,27 @@ class PostServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private FeedService feedService;
+
+    @Mock
+    private UserUtils userUtils;
+
+    @Mock
+    private CurrentUserContext currentUserContext;
+
+    @Mock
+    private VisibilityService visibilityService;
+
+    @Mock
+    private PostSearchIndex postSearchIndex;
+
+    @Mock
+    private TrendingTags trendingTags;
+
+    @Mock
+    private PostPurgeJob postPurgeJob;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -69,6 +104,13 @@ class PostServiceTest {
         post.setLikedUsers(new HashSet<>());
         post.setUploadedAt(LocalDateTime.now());
 
+        when(currentUserContext.getId()).thenReturn(1L);
+        when(currentUserContext.get()).thenReturn(currentUser);
+        when(currentUserContext.getReference()).thenReturn(currentUser);
+        when(visibilityService.canView(anyLong(), any(User.class))).thenReturn(true);
+        when(userUtils.fetchPost(anyLong())).thenAnswer(invocation -> postRepository.findById(invocation.getArgument(0))
+                .orElseThrow(() -> new PostNotFoundException(POST_NOT_FOUND.getMessage())));
+
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getName()).thenReturn("current_user");
@@ -77,10 +119,9 @@ class PostServiceTest {
     @Test
     void createPost_Success() {
         PostRequest request = new PostRequest();
-        request.setCaption("Test caption");
+        request.setCaption("Test caption #Sunset");
         request.setImageUrl("http://example.com/image.jpg");
 
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
         when(postRepository.save(any(Post.class))).thenAnswer(invocation -> {
             Post p = invocation.getArgument(0);
             p.setId(1L);
@@ -90,24 +131,47 @@ class PostServiceTest {
         PostResponse response = postService.createPost(request);
 
         assertNotNull(response);
-        assertEquals("Test caption", response.getCaption());
+        assertEquals("Test caption #Sunset", response.getCaption());
         assertEquals("http://example.com/image.jpg", response.getImageUrl());
         verify(postRepository, times(1)).save(any(Post.class));
+        verify(feedService, times(1)).fanOutPost(1L, 1L);
+        verify(userRepository, times(1)).adjustPostCount(1L, 1);
+        verify(postSearchIndex, times(1)).add(1L, "Test caption #Sunset");
+        verify(trendingTags, times(1)).record(Set.of("sunset"));
+    }
+
+    @Test
+    void createPost_SkipsTrending_ForPrivateAccount() {
+        currentUser.setPrivateAccount(true);
+        PostRequest request = new PostRequest();
+        request.setCaption("Test caption #Sunset");
+        request.setImageUrl("http://example.com/image.jpg");
+
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> {
+            Post p = invocation.getArgument(0);
+            p.setId(1L);
+            return p;
+        });
+
+        postService.createPost(request);
+
+        verify(postSearchIndex, times(1)).add(1L, "Test caption #Sunset");
+        verify(trendingTags, never()).record(any());
     }
 
     @Test
     void deletePost_Success() {
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
         when(postRepository.findById(1L)).thenReturn(Optional.of(post));
 
         postService.deletePost(1L);
 
         verify(postRepository, times(1)).deleteById(1L);
+        verify(userRepository, times(1)).adjustPostCount(1L, -1);
+        verify(postSearchIndex, times(1)).remove(1L, "Test caption");
     }
 
     @Test
     void deletePost_ThrowsException_WhenPostNotFound() {
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
         when(postRepository.findById(1L)).thenReturn(Optional.empty());
 
         PostNotFoundException exception = assertThrows(PostNotFoundException.class, () ->
@@ -124,7 +188,6 @@ class PostServiceTest {
         otherUser.setUsername("other_user");
         post.setUser(otherUser);
 
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
         when(postRepository.findById(1L)).thenReturn(Optional.of(post));
 
         AccessDeniedException exception = assertThrows(AccessDeniedException.class, () ->
@@ -149,13 +212,71 @@ class PostServiceTest {
         List<Post> posts = Arrays.asList(post1, post2);
 
         when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
-        when(postRepository.findByUser(currentUser)).thenReturn(posts);
+        when(postRepository.findLatestByUser(eq(currentUser), any(Pageable.class))).thenReturn(posts);
 
-        List<PostResponse> allPosts = postService.getAllPostOfUser("current_user");
+        PageResponse<PostResponse> allPosts = postService.getAllPostOfUser("current_user", null, 20);
 
-        assertEquals(2, allPosts.size());
+        assertEquals(2, allPosts.getItems().size());
+        assertNull(allPosts.getNextCursor());
         verify(userRepository, times(1)).findByUsername("current_user");
-        verify(postRepository, times(1)).findByUser(currentUser);
+        verify(postRepository, times(1)).findLatestByUser(eq(currentUser), any(Pageable.class));
+    }
+
+    @Test
+    void getAllPostOfUser_ReturnsCursor_WhenMorePostsExist() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Post> posts = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            Post p = new Post();
+            p.setId(id);
+            p.setUser(currentUser);
+            p.setUploadedAt(now.minusMinutes(3 - id));
+            posts.add(p);
+        }
+
+        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
+        when(postRepository.findLatestByUser(eq(currentUser), any(Pageable.class))).thenReturn(posts);
+        when(postRepository.findByUserBefore(eq(currentUser), any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(posts.get(2)));
+
+        PageResponse<PostResponse> firstPage = postService.getAllPostOfUser("current_user", null, 2);
+
+        assertEquals(2, firstPage.getItems().size());
+        assertNotNull(firstPage.getNextCursor());
+
+        PageResponse<PostResponse> secondPage = postService.getAllPostOfUser("current_user", firstPage.getNextCursor(), 2);
+
+        assertEquals(1, secondPage.getItems().size());
+        assertNull(secondPage.getNextCursor());
+        verify(postRepository).findByUserBefore(eq(currentUser), eq(posts.get(1).getUploadedAt()), eq(2L), any(Pageable.class));
+    }
+
+    @Test
+    void getAllPostOfUser_ThrowsException_WhenCursorIsInvalid() {
+        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
+
+        AppException exception = assertThrows(AppException.class, () ->
+                postService.getAllPostOfUser("current_user", "not-a-cursor", 20));
+
+        assertEquals(INVALID_CURSOR.getMessage(), exception.getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void getAllPostOfUser_ThrowsException_WhenOwnerIsPrivateAndNotFollowed() {
+        User owner = new User();
+        owner.setId(2L);
+        owner.setUsername("private_user");
+        owner.setPrivateAccount(true);
+        when(userRepository.findByUsername("private_user")).thenReturn(Optional.of(owner));
+        when(visibilityService.canView(1L, owner)).thenReturn(false);
+
+        AppException exception = assertThrows(AppException.class, () ->
+                postService.getAllPostOfUser("private_user", null, 20));
+
+        assertEquals(PRIVATE_ACCOUNT.getMessage(), exception.getMessage());
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+        verify(postRepository, never()).findLatestByUser(any(User.class), any(Pageable.class));
     }
 
     @Test
@@ -163,89 +284,218 @@ class PostServiceTest {
         when(userRepository.findByUsername("unknown_user")).thenReturn(Optional.empty());
 
         UserNotFoundException exception = assertThrows(UserNotFoundException.class, () ->
-                postService.getAllPostOfUser("unknown_user"));
+                postService.getAllPostOfUser("unknown_user", null, 20));
 
         assertEquals(USER_NOT_FOUND.getMessage(), exception.getMessage());
-        verify(postRepository, never()).findByUser(any(User.class));
+        verify(postRepository, never()).findLatestByUser(any(User.class), any(Pageable.class));
     }
 
     @Test
     void deleteAllPostOfUser_Success() {
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
 
-        postService.deleteAllPostOfUser();
+        when(postPurgeJob.start(1L)).thenReturn(new PostPurgeJob.Progress("job-1", 1L, 3L));
 
-        verify(userRepository, times(1)).findByUsername("current_user");
-        verify(postRepository, times(1)).deleteByUser(currentUser);
+        PurgeJobResponse response = postService.deleteAllPostOfUser();
+
+        assertEquals("job-1", response.getJobId());
+        assertEquals("QUEUED", response.getStatus());
+        assertEquals(3L, response.getTotalPosts());
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(postRepository, never()).deleteById(anyLong());
+    }
+
+    @Test
+    void getPurgeJob_ThrowsException_WhenJobBelongsToAnotherUser() {
+        when(postPurgeJob.get("job-2")).thenReturn(new PostPurgeJob.Progress("job-2", 2L, 3L));
+
+        AppException exception = assertThrows(AppException.class, () -> postService.getPurgeJob("job-2"));
+
+        assertEquals(PURGE_JOB_NOT_FOUND.getMessage(), exception.getMessage());
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    void searchPosts_SkipsPostsTheViewerCannotSee() {
+        User privateOwner = new User();
+        privateOwner.setId(2L);
+        privateOwner.setPrivateAccount(true);
+
+        Post hidden = new Post();
+        hidden.setId(3L);
+        hidden.setUser(privateOwner);
+
+        Post older = new Post();
+        older.setId(1L);
+        older.setCaption("Sunset #beach");
+        older.setUser(currentUser);
+
+        when(postSearchIndex.isReady()).thenReturn(true);
+        when(postSearchIndex.search("beach", Long.MAX_VALUE, 2)).thenReturn(List.of(3L, 2L));
+        when(postSearchIndex.search("beach", 2L, 2)).thenReturn(List.of(1L));
+        when(postRepository.findAllWithUserByIdIn(List.of(3L, 2L))).thenReturn(List.of(hidden));
+        when(postRepository.findAllWithUserByIdIn(List.of(1L))).thenReturn(List.of(older));
+        when(visibilityService.canView(1L, privateOwner)).thenReturn(false);
+
+        PageResponse<PostResponse> page = postService.searchPosts("beach", null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals("Sunset #beach", page.getItems().get(0).getCaption());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getPostsByTag_ReturnsCursor_WhenMorePostsExist() {
+        Post newer = new Post();
+        newer.setId(5L);
+        newer.setUser(currentUser);
+
+        when(postSearchIndex.isReady()).thenReturn(true);
+        when(postSearchIndex.searchTag("beach", Long.MAX_VALUE, 2)).thenReturn(List.of(5L, 1L));
+        when(postRepository.findAllWithUserByIdIn(List.of(5L, 1L))).thenReturn(List.of(newer, post));
+        when(postSearchIndex.searchTag("beach", 5L, 2)).thenReturn(List.of(1L));
+        when(postRepository.findAllWithUserByIdIn(List.of(1L))).thenReturn(List.of(post));
+
+        PageResponse<PostResponse> firstPage = postService.getPostsByTag("beach", null, 1);
+
+        assertEquals(1, firstPage.getItems().size());
+        assertNotNull(firstPage.getNextCursor());
+
+        PageResponse<PostResponse> secondPage = postService.getPostsByTag("beach", firstPage.getNextCursor(), 1);
+
+        assertEquals("Test caption", secondPage.getItems().get(0).getCaption());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void getTrendingTags_ReturnsSnapshotUpToLimit() {
+        when(trendingTags.getTrending()).thenReturn(List.of(
+                new TrendingTags.Trend("eclipse", 40L, 8.5),
+                new TrendingTags.Trend("sunset", 12L, 2.0)));
+
+        List<TrendingTagResponse> tags = postService.getTrendingTags(1);
+
+        assertEquals(1, tags.size());
+        assertEquals("eclipse", tags.get(0).getTag());
+        assertEquals(40L, tags.get(0).getLastHourCount());
+    }
+
+    @Test
+    void searchPosts_ThrowsServiceUnavailable_WhileIndexLoads() {
+        when(postSearchIndex.isReady()).thenReturn(false);
+
+        AppException exception = assertThrows(AppException.class, () -> postService.searchPosts("beach", null, 20));
+
+        assertEquals(SEARCH_INDEX_LOADING.getMessage(), exception.getMessage());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
     }
 
     @Test
     void likePost_Success() {
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
         when(postRepository.findById(1L)).thenReturn(Optional.of(post));
-        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(postRepository.insertLike(1L, 1L)).thenReturn(1);
 
         ResponseEntity<String> response = postService.likePost(1L);
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertEquals(LIKED_SUCCESSFULLY.getMessage(), response.getBody());
-        assertTrue(post.getLikedUsers().contains(currentUser));
-        verify(postRepository, times(1)).save(post);
+        verify(postRepository, times(1)).insertLike(1L, 1L);
+        verify(postRepository, times(1)).adjustLikeCount(1L, 1);
+        verify(postRepository, never()).save(any(Post.class));
     }
 
     @Test
     void likePost_ReturnsAlreadyLiked_WhenAlreadyLiked() {
-        post.getLikedUsers().add(currentUser);
-        currentUser.getLikedPosts().add(post);
-
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
         when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(postRepository.insertLike(1L, 1L)).thenReturn(0);
 
         ResponseEntity<String> response = postService.likePost(1L);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(ALREADY_LIKED.getMessage(), response.getBody());
-        verify(postRepository, never()).save(any(Post.class));
+        verify(postRepository, never()).adjustLikeCount(anyLong(), anyLong());
     }
 
     @Test
-    void unlikePost_Success() {
-        post.getLikedUsers().add(currentUser);
-        currentUser.getLikedPosts().add(post);
+    void likePost_ThrowsConflict_WhenConcurrentLikeWins() {
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(postRepository.insertLike(1L, 1L)).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException("duplicate", "23505"), "post_likes_pkey")));
 
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
+        AppException exception = assertThrows(AppException.class, () -> postService.likePost(1L));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertEquals(CONCURRENT_UPDATE.getMessage(), exception.getMessage());
+        verify(postRepository, never()).adjustLikeCount(anyLong(), anyLong());
+    }
+
+    @Test
+    void likePost_RethrowsOtherIntegrityViolations() {
         when(postRepository.findById(1L)).thenReturn(Optional.of(post));
-        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(postRepository.insertLike(1L, 1L)).thenThrow(new DataIntegrityViolationException("foreign key",
+                new ConstraintViolationException("foreign key", new SQLException("foreign key", "23503"), "fk_post_likes_post")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> postService.likePost(1L));
+    }
+
+    @Test
+    void unlikePost_Success() {
+        when(postRepository.deleteLike(1L, 1L)).thenReturn(1);
 
         ResponseEntity<String> response = postService.unlikePost(1L);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(UNLIKED_SUCCESSFULLY.getMessage(), response.getBody());
-        assertFalse(post.getLikedUsers().contains(currentUser));
-        verify(postRepository, times(1)).save(post);
+        verify(postRepository, times(1)).adjustLikeCount(1L, -1);
+        verify(postRepository, never()).findById(anyLong());
     }
 
     @Test
     void unlikePost_ReturnsNotLiked_WhenNotLiked() {
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
-        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(postRepository.deleteLike(1L, 1L)).thenReturn(0);
+        when(postRepository.existsById(1L)).thenReturn(true);
 
         ResponseEntity<String> response = postService.unlikePost(1L);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(NOT_LIKED.getMessage(), response.getBody());
-        verify(postRepository, never()).save(any(Post.class));
+        verify(postRepository, never()).adjustLikeCount(anyLong(), anyLong());
+    }
+
+    @Test
+    void unlikePost_ThrowsException_WhenPostNotFound() {
+        when(postRepository.deleteLike(1L, 1L)).thenReturn(0);
+        when(postRepository.existsById(1L)).thenReturn(false);
+
+        PostNotFoundException exception = assertThrows(PostNotFoundException.class, () ->
+                postService.unlikePost(1L));
+
+        assertEquals(POST_NOT_FOUND.getMessage(), exception.getMessage());
+    }
+
+    @Test
+    void likePost_ThrowsException_WhenOwnerIsPrivateAndNotFollowed() {
+        User owner = new User();
+        owner.setId(2L);
+        owner.setPrivateAccount(true);
+        post.setUser(owner);
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(visibilityService.canView(1L, owner)).thenReturn(false);
+
+        AppException exception = assertThrows(AppException.class, () ->
+                postService.likePost(1L));
+
+        assertEquals(YOU_CANNOT_LIKE.getMessage(), exception.getMessage());
+        verify(postRepository, never()).insertLike(anyLong(), anyLong());
     }
 
     @Test
     void likePost_ThrowsException_WhenPostNotFound() {
-        when(userRepository.findByUsername("current_user")).thenReturn(Optional.of(currentUser));
         when(postRepository.findById(1L)).thenReturn(Optional.empty());
 
         PostNotFoundException exception = assertThrows(PostNotFoundException.class, () ->
                 postService.likePost(1L));
 
         assertEquals(POST_NOT_FOUND.getMessage(), exception.getMessage());
-        verify(postRepository, never()).save(any(Post.class));
+        verify(postRepository, never()).insertLike(anyLong(), anyLong());
     }
 }
@@ -1,13 +1,22 @@
 package com.projects.My_Instagram.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projects.My_Instagram.DTOs.request.UserRequest;
+import com.projects.My_Instagram.DTOs.response.PageResponse;
 import com.projects.My_Instagram.DTOs.response.UserResponse;
+import com.projects.My_Instagram.DTOs.response.UserSearchResponse;
+import com.projects.My_Instagram.DTOs.response.UsernameAvailabilityResponse;
+import com.projects.My_Instagram.exceptions.AppException;
 import com.projects.My_Instagram.exceptions.UserNameExistsException;
 import com.projects.My_Instagram.exceptions.UserNameNullException;
 import com.projects.My_Instagram.exceptions.UserNotFoundException;
+import com.projects.My_Instagram.helper.UsernameFilter;
 import com.projects.My_Instagram.models.Role;
 import com.projects.My_Instagram.models.User;
 import com.projects.My_Instagram.repositories.UserRepository;
+import com.projects.My_Instagram.search.UserSearchIndex;
+import com.projects.My_Instagram.security.PrincipalCache;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,14 +24,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.projects.My_Instagram.constants.exception.ExceptionMessages.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
@@ -33,6 +57,24 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private UsernameFilter usernameFilter;
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
     @InjectMocks
     private UserService userService;
 
@@ -53,9 +95,8 @@ class UserServiceTest {
         savedUser.setRole(Role.USER);
         savedUser.setPrivateAccount(false);
 
-        Mockito.when(userRepository.existsByUsername("asma_123")).thenReturn(false);
         Mockito.when(passwordEncoder.encode("password123")).thenReturn("encoded_password");
-        Mockito.when(userRepository.save(Mockito.any(User.class))).thenReturn(savedUser);
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class))).thenReturn(savedUser);
 
         UserResponse userResponse = userService.createUser(userRequest);
 
@@ -63,7 +104,10 @@ class UserServiceTest {
         Assertions.assertEquals(userRequest.getFullName(), userResponse.getFullName());
         Assertions.assertEquals(userRequest.getProfilePicUrl(), userResponse.getProfilePicUrl());
 
-        Mockito.verify(userRepository, Mockito.times(1)).save(Mockito.any(User.class));
+        Mockito.verify(userRepository, Mockito.times(1)).saveAndFlush(Mockito.any(User.class));
+        Mockito.verify(userRepository, Mockito.never()).existsByUsername(Mockito.anyString());
+        Mockito.verify(usernameFilter, Mockito.times(1)).add("asma_123");
+        Mockito.verify(userSearchIndex, Mockito.times(1)).put(Mockito.any(User.class));
     }
 
     @Test
@@ -71,14 +115,67 @@ class UserServiceTest {
         UserRequest userRequest = new UserRequest();
         userRequest.setFullName("Asma Mulla");
         userRequest.setUsername("asma_123");
+        userRequest.setPassword("password123");
         userRequest.setProfilePicUrl("http://example.com/image1.jpg");
 
-        Mockito.when(userRepository.existsByUsername("asma_123")).thenReturn(true);
+        Mockito.when(passwordEncoder.encode("password123")).thenReturn("encoded_password");
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException(), "uk_users_username")));
 
         UserNameExistsException userNameExistsException = assertThrows(UserNameExistsException.class, () -> userService.createUser(userRequest));
 
         Assertions.assertEquals(USER_NAME_EXISTS.getMessage(), userNameExistsException.getMessage());
-        Mockito.verify(userRepository, Mockito.never()).save(Mockito.any(User.class));
+        Mockito.verify(userRepository, Mockito.never()).existsByUsername(Mockito.anyString());
+        Mockito.verify(usernameFilter, Mockito.never()).add(Mockito.anyString());
+        Mockito.verify(userSearchIndex, Mockito.never()).put(Mockito.any(User.class));
+    }
+
+    @Test
+    void createUser_RejectsTakenName_BeforeHashingPassword() {
+        UserRequest userRequest = new UserRequest();
+        userRequest.setUsername("asma_123");
+        userRequest.setPassword("password123");
+
+        Mockito.when(usernameFilter.mightBeTaken("asma_123")).thenReturn(true);
+        Mockito.when(userRepository.existsByUsername("asma_123")).thenReturn(true);
+
+        assertThrows(UserNameExistsException.class, () -> userService.createUser(userRequest));
+
+        Mockito.verify(passwordEncoder, Mockito.never()).encode(Mockito.anyString());
+        Mockito.verify(userRepository, Mockito.never()).saveAndFlush(Mockito.any(User.class));
+    }
+
+    @Test
+    void createUser_RethrowsOtherIntegrityViolations() {
+        UserRequest userRequest = new UserRequest();
+        userRequest.setUsername("asma_123");
+        userRequest.setPassword("password123");
+
+        Mockito.when(passwordEncoder.encode("password123")).thenReturn("encoded_password");
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class))).thenThrow(new DataIntegrityViolationException("not null",
+                new ConstraintViolationException("not null", new SQLException(), "users_full_name_not_null")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(userRequest));
+    }
+
+    @Test
+    void isUsernameAvailable_SkipsDatabase_WhenFilterHasNotSeenName() {
+        Mockito.when(usernameFilter.mightBeTaken("fresh_name")).thenReturn(false);
+
+        UsernameAvailabilityResponse response = userService.isUsernameAvailable("fresh_name");
+
+        Assertions.assertTrue(response.isAvailable());
+        Mockito.verify(userRepository, Mockito.never()).existsByUsername(Mockito.anyString());
+    }
+
+    @Test
+    void isUsernameAvailable_ChecksDatabase_WhenFilterMayHaveSeenName() {
+        Mockito.when(usernameFilter.mightBeTaken("asma_123")).thenReturn(true);
+        Mockito.when(userRepository.existsByUsername("asma_123")).thenReturn(true);
+
+        UsernameAvailabilityResponse response = userService.isUsernameAvailable("asma_123");
+
+        Assertions.assertFalse(response.isAvailable());
     }
 
     @Test
@@ -131,11 +228,73 @@ class UserServiceTest {
 
         List<User> users = List.of(user);
 
-        Mockito.when(userRepository.findAll()).thenReturn(users);
+        Mockito.when(userRepository.findPageAfter(eq(0L), any(Pageable.class))).thenReturn(users);
+
+        PageResponse<UserResponse> allUsers = userService.getAllUsers(null, 50);
+
+        Assertions.assertEquals(1, allUsers.getItems().size());
+        Assertions.assertNull(allUsers.getNextCursor());
+        Mockito.verify(userRepository, Mockito.never()).findAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportAllUsers_WritesNothing_WhenThereAreNoRows() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userService.exportAllUsers().writeTo(out);
+
+        Assertions.assertEquals(0, out.size());
+    }
+
+    @Test
+    void getAllUsers_ReturnsCursorOfLastId_WhenMoreUsersExist() {
+        User first = new User();
+        first.setId(1L);
+        User second = new User();
+        second.setId(2L);
+
+        Mockito.when(userRepository.findPageAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(first, second));
+        Mockito.when(userRepository.findPageAfter(eq(1L), any(Pageable.class))).thenReturn(List.of(second));
 
-        List<UserResponse> allUsers = userService.getAllUsers();
+        PageResponse<UserResponse> firstPage = userService.getAllUsers(null, 1);
+        PageResponse<UserResponse> secondPage = userService.getAllUsers(firstPage.getNextCursor(), 1);
 
-        Assertions.assertEquals(1, allUsers.size());
+        Assertions.assertEquals(1L, firstPage.getItems().get(0).getId());
+        Assertions.assertEquals(2L, secondPage.getItems().get(0).getId());
+        Assertions.assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportAllUsers_WritesOneJsonLinePerRow() throws Exception {
+        ResultSet row = Mockito.mock(ResultSet.class);
+        Mockito.when(row.getLong("id")).thenReturn(1L, 2L);
+        Mockito.when(row.getString("username")).thenReturn("first", "second");
+
+        Mockito.doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        Mockito.doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            handler.processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userService.exportAllUsers().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertEquals("first", objectMapper.readValue(lines[0], UserResponse.class).getUsername());
+        Assertions.assertEquals("second", objectMapper.readValue(lines[1], UserResponse.class).getUsername());
+        Mockito.verify(userRepository, Mockito.never()).findAll();
     }
 
     @Test
@@ -158,8 +317,7 @@ class UserServiceTest {
         savedUser.setPrivateAccount(false);
 
         Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(existingUser));
-        Mockito.when(userRepository.existsByUsername("asma_456")).thenReturn(false);
-        Mockito.when(userRepository.save(Mockito.any(User.class))).thenReturn(savedUser);
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class))).thenReturn(savedUser);
 
         UserResponse userResponse = userService.updateUser(userId, updatedUser);
 
@@ -167,20 +325,59 @@ class UserServiceTest {
         Assertions.assertEquals("Asma Khan", userResponse.getFullName());
 
         Mockito.verify(userRepository, Mockito.times(1)).findById(userId);
-        Mockito.verify(userRepository, Mockito.times(1)).save(existingUser);
+        Mockito.verify(userRepository, Mockito.times(1)).saveAndFlush(existingUser);
+        Mockito.verify(usernameFilter, Mockito.times(1)).add("asma_456");
+        Mockito.verify(usernameFilter, Mockito.times(1)).markRemoved();
+        Mockito.verify(userSearchIndex, Mockito.times(1)).put(existingUser);
     }
 
     @Test
     void deleteUser() {
         Long userId = 1L;
-        User existingUser = new User();
-        existingUser.setId(userId);
 
-        Mockito.when(userRepository.findById(userId)).thenReturn(Optional.of(existingUser));
+        Mockito.when(userRepository.markDeleted(userId)).thenReturn(1);
 
         userService.deleteUser(userId);
 
-        Mockito.verify(userRepository, Mockito.times(1)).findById(userId);
-        Mockito.verify(userRepository, Mockito.times(1)).delete(existingUser);
+        Mockito.verify(userRepository, Mockito.times(1)).markDeleted(userId);
+        Mockito.verify(userRepository, Mockito.never()).delete(Mockito.any(User.class));
+        Mockito.verify(principalCache, Mockito.times(1)).invalidate(userId);
+        Mockito.verify(userSearchIndex, Mockito.times(1)).remove(userId);
+    }
+
+    @Test
+    void deleteUser_ThrowsUserNotFound_WhenAlreadyDeleted() {
+        Long userId = 1L;
+
+        Mockito.when(userRepository.markDeleted(userId)).thenReturn(0);
+
+        Assertions.assertThrows(UserNotFoundException.class, () -> userService.deleteUser(userId));
+
+        Mockito.verify(userSearchIndex, Mockito.never()).remove(userId);
+    }
+
+    @Test
+    void searchUsers_MapsIndexMatches() {
+        Mockito.when(userSearchIndex.isReady()).thenReturn(true);
+        Mockito.when(userSearchIndex.search("asm", 10)).thenReturn(List.of(
+                new UserSearchIndex.Entry(2L, "asma_khan", "Asma Khan", null, 40L),
+                new UserSearchIndex.Entry(1L, "asma_123", "Asma Mulla", null, 3L)));
+
+        List<UserSearchResponse> users = userService.searchUsers("asm", 10);
+
+        Assertions.assertEquals(2, users.size());
+        Assertions.assertEquals("asma_khan", users.get(0).getUsername());
+        Assertions.assertEquals(40L, users.get(0).getFollowerCount());
+    }
+
+    @Test
+    void searchUsers_ThrowsServiceUnavailable_WhileIndexLoads() {
+        Mockito.when(userSearchIndex.isReady()).thenReturn(false);
+
+        AppException exception = assertThrows(AppException.class, () -> userService.searchUsers("asm", 10));
+
+        Assertions.assertEquals(SEARCH_INDEX_LOADING.getMessage(), exception.getMessage());
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        Mockito.verify(userSearchIndex, Mockito.never()).search(Mockito.anyString(), Mockito.anyInt());
     }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.projects.My_Instagram.services;
+
+import com.projects.My_Instagram.graph.FollowGraph;
+import com.projects.My_Instagram.models.User;
+import com.projects.My_Instagram.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VisibilityServiceTest {
+
+    @Mock
+    private FollowGraph followGraph;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private VisibilityService visibilityService;
+
+    private User privateOwner;
+
+    @BeforeEach
+    void setUp() {
+        privateOwner = new User();
+        privateOwner.setId(2L);
+        privateOwner.setPrivateAccount(true);
+    }
+
+    @Test
+    void canView_PublicAccount_WithoutLookingUpFollows() {
+        User publicOwner = new User();
+        publicOwner.setId(3L);
+        publicOwner.setPrivateAccount(false);
+
+        assertTrue(visibilityService.canView(1L, publicOwner));
+        verifyNoInteractions(followGraph, userRepository);
+    }
+
+    @Test
+    void canView_OwnPrivateAccount() {
+        assertTrue(visibilityService.canView(2L, privateOwner));
+        verifyNoInteractions(followGraph, userRepository);
+    }
+
+    @Test
+    void canView_PrivateAccount_UsesFollowGraph() {
+        when(followGraph.isReady()).thenReturn(true);
+        when(followGraph.isFollowing(1L, 2L)).thenReturn(true);
+        when(followGraph.isFollowing(4L, 2L)).thenReturn(false);
+
+        assertTrue(visibilityService.canView(1L, privateOwner));
+        assertFalse(visibilityService.canView(4L, privateOwner));
+        verify(userRepository, never()).existsFollow(anyLong(), anyLong());
+    }
+
+    @Test
+    void canView_PrivateAccount_ProbesDatabase_WhenGraphNotLoaded() {
+        when(followGraph.isReady()).thenReturn(false);
+        when(userRepository.existsFollow(1L, 2L)).thenReturn(true);
+
+        assertTrue(visibilityService.canView(1L, 2L, true));
+        verify(followGraph, never()).isFollowing(anyLong(), anyLong());
+    }
+}
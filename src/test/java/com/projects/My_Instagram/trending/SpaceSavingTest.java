@@ -0,0 +1,23 @@
+package com.projects.My_Instagram.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void keys_KeepFrequentKeysAmongManyRareOnes() {
+        SpaceSaving spaceSaving = new SpaceSaving(20);
+        Random random = new Random(3);
+
+        for (int i = 0; i < 10_000; i++) {
+            spaceSaving.offer(i % 10 == 0 ? "frequent" : "rare" + random.nextInt(100_000));
+        }
+
+        assertEquals(20, spaceSaving.keys().size());
+        assertTrue(spaceSaving.keys().contains("frequent"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.projects.My_Instagram.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingTagsTest {
+    private static final long HOUR = 3_600_000L;
+    private static final long START = 1_000_000 * HOUR;
+
+    private final TrendingTags trendingTags = new TrendingTags(5, 3, 64);
+
+    @Test
+    void refresh_RanksBurstAboveSteadyTraffic() {
+        for (int hour = 0; hour < 24; hour++) {
+            for (int i = 0; i < 10; i++) {
+                trendingTags.record(List.of("food"), START + hour * HOUR + i * 60_000L);
+            }
+        }
+        long now = START + 24 * HOUR;
+        for (int i = 0; i < 12; i++) {
+            trendingTags.record(List.of("eclipse"), now + i);
+        }
+        trendingTags.record(List.of("once"), now);
+
+        trendingTags.refresh(now + 1000);
+
+        List<TrendingTags.Trend> trends = trendingTags.getTrending();
+        assertEquals(List.of("eclipse", "food"), trends.stream().map(TrendingTags.Trend::tag).toList());
+        assertEquals(12, trends.get(0).lastHourCount());
+        assertTrue(trends.get(0).score() > trends.get(1).score());
+    }
+
+    @Test
+    void refresh_ForgetsTagsOlderThanAnHour() {
+        for (int i = 0; i < 5; i++) {
+            trendingTags.record(List.of("sunset"), START + i);
+        }
+
+        trendingTags.refresh(START + 1000);
+        assertEquals(5, trendingTags.getTrending().get(0).lastHourCount());
+
+        trendingTags.refresh(START + 2 * HOUR);
+        assertTrue(trendingTags.getTrending().isEmpty());
+    }
+
+    @Test
+    void getTrending_KeepsLastSnapshotUntilNextRefresh() {
+        trendingTags.record(List.of("a", "b", "c"), START);
+        trendingTags.record(List.of("a", "b", "c"), START);
+        trendingTags.record(List.of("a", "b", "c"), START);
+
+        assertTrue(trendingTags.getTrending().isEmpty());
+
+        trendingTags.refresh(START);
+
+        assertEquals(3, trendingTags.getTrending().size());
+    }
+}